@@ -0,0 +1,291 @@
+package com.tools.point.of.main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tools.point.of.sale.dto.CheckoutDto;
+import com.tools.point.of.sale.dto.ProcessResult;
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reprices a file of checkouts (CSV or NDJSON) into a file of rental agreements, in input order.
+ *
+ * The input is read sequentially through a large NIO-backed buffer and cut into chunks of lines;
+ * each chunk is parsed, priced and formatted on a fork-join pool, while the calling thread writes the
+ * finished chunks in input order through a buffered writer. At most a few chunks per worker are in
+ * flight, so memory use does not depend on the size of the file. Pricing uses
+ * CheckoutServiceFromMainClass.priceCheckout and does not add the agreements to the static database.
+ *
+ * Input CSV columns are toolCode,rentalDays,discountPercent,checkoutDate with an optional header line;
+ * NDJSON lines are CheckoutDto objects. The output is CSV when its file name ends with .csv and NDJSON
+ * otherwise, one agreement (or error) per input record.
+ *
+ * @author melessweldemichael
+ */
+public class BatchCheckoutRunner {
+
+    static final int CHUNK_SIZE = 4096;
+    private static final int CHUNKS_IN_FLIGHT_PER_WORKER = 4;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final String CSV_HEADER = "toolCode,toolType,toolBrand,rentalDays,checkOutDate,dueDate,"
+            + "dailyRentalCharge,chargeDays,preDiscountCharge,discountPercent,discountAmount,finalCharge,status,message";
+
+    private final CheckoutServiceFromMainClass checkoutService;
+    private final ObjectReader checkoutReader;
+    private final ObjectWriter agreementWriter;
+    private final int parallelism;
+
+    /**
+     * Creates a runner.
+     *
+     * @param checkoutService The service pricing each checkout.
+     * @param parallelism The number of pricing threads.
+     */
+    public BatchCheckoutRunner(CheckoutServiceFromMainClass checkoutService, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism should be 1 or more");
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.checkoutService = checkoutService;
+        this.checkoutReader = objectMapper.readerFor(CheckoutDto.class);
+        this.agreementWriter = objectMapper.writerFor(RentalAgreementDto.class);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Prices every checkout of the input file and writes the agreements to the output file.
+     *
+     * @param input The CSV or NDJSON file of checkouts.
+     * @param output The file to write the agreements to; it is replaced.
+     * @return The number of records, failures, throughput and per-record latency.
+     * @throws IOException If the input cannot be read or the output cannot be written.
+     */
+    public BatchSummary run(Path input, Path output) throws IOException {
+        boolean csvInput = isCsv(input);
+        boolean csvOutput = isCsv(output);
+        long start = System.nanoTime();
+        LatencyHistogram latencies = new LatencyHistogram();
+        long records = 0;
+        long failed = 0;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Deque<ForkJoinTask<PricedChunk>> inFlight = new ArrayDeque<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8), IO_BUFFER_SIZE);
+             Writer writer = new BufferedWriter(
+                     new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8), IO_BUFFER_SIZE)) {
+            if (csvOutput) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            List<String> lines = new ArrayList<>(CHUNK_SIZE);
+            long[] lineNumbers = new long[CHUNK_SIZE];
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && csvInput && isCsvHeader(line))) {
+                    continue;
+                }
+                lineNumbers[lines.size()] = lineNumber;
+                lines.add(line);
+                if (lines.size() == CHUNK_SIZE) {
+                    inFlight.addLast(pool.submit(priceChunk(lines, lineNumbers, csvInput, csvOutput)));
+                    lines = new ArrayList<>(CHUNK_SIZE);
+                    lineNumbers = new long[CHUNK_SIZE];
+                    if (inFlight.size() >= parallelism * CHUNKS_IN_FLIGHT_PER_WORKER) {
+                        PricedChunk chunk = inFlight.removeFirst().join();
+                        writer.write(chunk.text());
+                        records += chunk.records();
+                        failed += chunk.failed();
+                        latencies.add(chunk.latencies());
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                inFlight.addLast(pool.submit(priceChunk(lines, lineNumbers, csvInput, csvOutput)));
+            }
+            while (!inFlight.isEmpty()) {
+                PricedChunk chunk = inFlight.removeFirst().join();
+                writer.write(chunk.text());
+                records += chunk.records();
+                failed += chunk.failed();
+                latencies.add(chunk.latencies());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return new BatchSummary(records, failed, elapsed, latencies.percentileMicros(50),
+                latencies.percentileMicros(99), latencies.maxMicros());
+    }
+
+    private ForkJoinTask<PricedChunk> priceChunk(List<String> lines, long[] lineNumbers, boolean csvInput, boolean csvOutput) {
+        return ForkJoinTask.adapt(() -> {
+            StringBuilder text = new StringBuilder(lines.size() * 256);
+            LatencyHistogram latencies = new LatencyHistogram();
+            int failed = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                long start = System.nanoTime();
+                RentalAgreementDto rentalAgreementDto = price(lines.get(i), lineNumbers[i], csvInput);
+                latencies.record(System.nanoTime() - start);
+                if (!"Ok".equals(rentalAgreementDto.getProcessResult().getStatus())) {
+                    failed++;
+                }
+                if (csvOutput) {
+                    appendCsv(text, rentalAgreementDto);
+                } else {
+                    text.append(agreementWriter.writeValueAsString(rentalAgreementDto));
+                }
+                text.append('\n');
+            }
+            return new PricedChunk(text.toString(), lines.size(), failed, latencies);
+        });
+    }
+
+    private RentalAgreementDto price(String line, long lineNumber, boolean csvInput) {
+        try {
+            CheckoutDto checkoutDto = csvInput ? parseCsv(line) : checkoutReader.readValue(line);
+            return checkoutService.priceCheckout(checkoutDto);
+        } catch (Exception ex) {
+            return RentalAgreementDto.builder()
+                    .processResult(ProcessResult.builder().status("Error").message("Line " + lineNumber + ": " + ex.getMessage()).build())
+                    .build();
+        }
+    }
+
+    private static CheckoutDto parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("expected toolCode,rentalDays,discountPercent,checkoutDate");
+        }
+        return new CheckoutDto(fields[0].trim(), Integer.valueOf(fields[1].trim()), Integer.valueOf(fields[2].trim()), fields[3].trim());
+    }
+
+    private static void appendCsv(StringBuilder text, RentalAgreementDto rentalAgreementDto) {
+        ProcessResult processResult = rentalAgreementDto.getProcessResult();
+        boolean ok = "Ok".equals(processResult.getStatus());
+        appendCsvValue(text, rentalAgreementDto.getToolCode()).append(',');
+        appendCsvValue(text, rentalAgreementDto.getToolType()).append(',');
+        appendCsvValue(text, rentalAgreementDto.getToolBrand()).append(',');
+        if (ok) {
+            text.append(rentalAgreementDto.getRentalDays()).append(',')
+                    .append(rentalAgreementDto.getCheckOutDate()).append(',')
+                    .append(rentalAgreementDto.getDueDate()).append(',')
+                    .append(dollars(rentalAgreementDto.getDailyRentalCharge())).append(',')
+                    .append(rentalAgreementDto.getChargeDays()).append(',')
+                    .append(dollars(rentalAgreementDto.getPreDiscountCharge())).append(',')
+                    .append(Math.round(rentalAgreementDto.getDiscountPercent())).append(',')
+                    .append(dollars(rentalAgreementDto.getDiscountAmount())).append(',')
+                    .append(dollars(rentalAgreementDto.getFinalCharge())).append(',');
+        } else {
+            text.append(",,,,,,,,,");
+        }
+        appendCsvValue(text, processResult.getStatus()).append(',');
+        appendCsvValue(text, processResult.getMessage());
+    }
+
+    private static StringBuilder appendCsvValue(StringBuilder text, String value) {
+        if (value == null) {
+            return text;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return text.append(value);
+        }
+        return text.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static String dollars(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    private static boolean isCsv(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase().startsWith("toolcode");
+    }
+
+    private record PricedChunk(String text, int records, int failed, LatencyHistogram latencies) {
+    }
+
+    /**
+     * Counts of a batch run.
+     */
+    public record BatchSummary(long records, long failed, Duration elapsed, double p50Micros, double p99Micros, double maxMicros) {
+
+        public double recordsPerSecond() {
+            double seconds = elapsed.toNanos() / 1e9;
+            return seconds == 0 ? records : records / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("priced %,d checkouts (%,d failed) in %.3f s: %,.0f checkouts/s, "
+                            + "latency per checkout p50 <= %.1f us, p99 <= %.1f us, max %.1f us",
+                    records, failed, elapsed.toNanos() / 1e9, recordsPerSecond(), p50Micros, p99Micros, maxMicros);
+        }
+    }
+
+    /**
+     * Latencies in power-of-two nanosecond buckets; percentiles are reported as bucket upper bounds.
+     */
+    static final class LatencyHistogram {
+        private final long[] counts = new long[64];
+        private long total;
+        private long maxNanos;
+
+        void record(long nanos) {
+            long value = Math.max(1, nanos);
+            counts[63 - Long.numberOfLeadingZeros(value)]++;
+            total++;
+            maxNanos = Math.max(maxNanos, value);
+        }
+
+        void add(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            maxNanos = Math.max(maxNanos, other.maxNanos);
+        }
+
+        double percentileMicros(int percentile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // bucket i holds [2^i, 2^(i+1)) nanoseconds
+                    return Math.min(maxNanos, (2L << i) - 1) / 1000.0;
+                }
+            }
+            return maxMicros();
+        }
+
+        double maxMicros() {
+            return maxNanos / 1000.0;
+        }
+    }
+}
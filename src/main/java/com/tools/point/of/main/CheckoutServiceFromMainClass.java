@@ -4,21 +4,26 @@ import com.tools.point.of.sale.dto.CheckoutDto;
 import com.tools.point.of.sale.dto.ProcessResult;
 import com.tools.point.of.sale.dto.RentalAgreementDto;
 import com.tools.point.of.sale.dto.ToolDto;
+import com.tools.point.of.sale.util.Money;
 import com.tools.point.of.sale.util.ToolsStaticDb;
 
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.tools.point.of.sale.util.ToolsRentalUtil.*;
 /**
  * This class provides the checkout service for rental tools.
  * It uses a static database (`ToolsStaticDb`) to retrieve tool details and to save rental agreements.
  * It handles the processing of checkout requests by validating input data, calculating charges, and storing rental agreements.
+ * Instances share the static database and can be used by many threads at once.
  *
  * @author melessweldemichael
  */
 
 public class CheckoutServiceFromMainClass {
-    ToolsStaticDb toolsStaticDb = new ToolsStaticDb();
+    private final ToolsStaticDb toolsStaticDb = new ToolsStaticDb();
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
 
     /**
@@ -31,30 +36,10 @@ public class CheckoutServiceFromMainClass {
      */
     public RentalAgreementDto checkoutTool(CheckoutDto checkoutDto) {
         try {
-            RentalAgreementDto rentalAgreementDto = validateCheckout(checkoutDto);
-            // check for invalid checkout values
-            if (rentalAgreementDto.getProcessResult() != null) {
-                return rentalAgreementDto;
+            RentalAgreementDto rentalAgreementDto = priceCheckout(checkoutDto);
+            if ("Ok".equals(rentalAgreementDto.getProcessResult().getStatus())) {
+                saveCheckOutData(rentalAgreementDto);
             }
-            // Retrieve tool details from the static database
-            ToolDto tool = toolsStaticDb.getToolDetails(checkoutDto.getToolCode());
-
-            // Set details in the rental agreement DTO
-            rentalAgreementDto.setRentalDays(checkoutDto.getRentalDays());
-            rentalAgreementDto.setToolCode(checkoutDto.getToolCode());
-            rentalAgreementDto.setDiscountPercent(checkoutDto.getDiscountPercent());
-            rentalAgreementDto.setCheckOutDate(extractFormatedDate(checkoutDto.getCheckoutDate()));
-            rentalAgreementDto.setToolType(tool.getToolType());
-            rentalAgreementDto.setToolBrand(tool.getBrand());
-            rentalAgreementDto.setDueDate(setDueDate(checkoutDto.getCheckoutDate(), checkoutDto.getRentalDays()));
-            rentalAgreementDto.setDailyRentalCharge(tool.getDailyCharge());
-            rentalAgreementDto.setChargeDays(getNumberOfChargeDays(tool.getToolType(), checkoutDto.getCheckoutDate(), checkoutDto.getRentalDays()));
-            rentalAgreementDto.setPreDiscountCharge(calculatePreDiscountCharge(rentalAgreementDto.getDailyRentalCharge(), rentalAgreementDto.getChargeDays()));
-            rentalAgreementDto.setDiscountPercent(checkoutDto.getDiscountPercent());
-            rentalAgreementDto.setDiscountAmount(calculateDiscountAmount(checkoutDto.getDiscountPercent(), rentalAgreementDto.getPreDiscountCharge()));
-            rentalAgreementDto.setFinalCharge(calculateFinalCharge(rentalAgreementDto.getPreDiscountCharge(), rentalAgreementDto.getDiscountAmount()));
-            rentalAgreementDto.setProcessResult(ProcessResult.builder().status("Ok").message("Checkout Successful").build());
-            saveCheckOutData(rentalAgreementDto);
             return rentalAgreementDto;
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -62,6 +47,78 @@ public class CheckoutServiceFromMainClass {
         return null;
     }
 
+    /**
+     * Processes a chunk of checkouts: prices each one and saves the successful ones to the static database
+     * with a single append, so callers working in parallel touch the shared agreement log once per chunk.
+     * A checkout that fails with an exception gets an error result; the other checkouts are not affected.
+     *
+     * @param checkoutDtos The checkouts.
+     * @return One `RentalAgreementDto` per checkout, in input order.
+     */
+    public List<RentalAgreementDto> checkoutTools(List<CheckoutDto> checkoutDtos) {
+        List<RentalAgreementDto> rentalAgreementDtos = new ArrayList<>(checkoutDtos.size());
+        List<RentalAgreementDto> checkedOut = new ArrayList<>(checkoutDtos.size());
+        for (CheckoutDto checkoutDto : checkoutDtos) {
+            RentalAgreementDto rentalAgreementDto;
+            try {
+                rentalAgreementDto = priceCheckout(checkoutDto);
+            } catch (Exception ex) {
+                rentalAgreementDto = RentalAgreementDto.builder()
+                        .processResult(ProcessResult.builder().status("Error").message("Checkout failed: " + ex.getMessage()).build())
+                        .build();
+            }
+            if ("Ok".equals(rentalAgreementDto.getProcessResult().getStatus())) {
+                checkedOut.add(rentalAgreementDto);
+            }
+            rentalAgreementDtos.add(rentalAgreementDto);
+        }
+        if (!checkedOut.isEmpty()) {
+            toolsStaticDb.populateRentalAggreements(checkedOut);
+        }
+        return rentalAgreementDtos;
+    }
+
+    /**
+     * Validates and prices a checkout without saving a rental agreement, e.g. to reprice past checkouts.
+     * A checkout date that cannot be parsed is logged and priced from today, see
+     * {@link com.tools.point.of.sale.util.ToolsRentalUtil#parseCheckoutDate(String)}.
+     *
+     * @param checkoutDto The checkout details including tool code, rental days, discount percent, and checkout date.
+     * @return A `RentalAgreementDto` containing the rental charges and dates, or an error message.
+     */
+    public RentalAgreementDto priceCheckout(CheckoutDto checkoutDto) {
+        RentalAgreementDto rentalAgreementDto = validateCheckout(checkoutDto);
+        // check for invalid checkout values
+        if (rentalAgreementDto.getProcessResult() != null) {
+            return rentalAgreementDto;
+        }
+        // Retrieve tool details from the static database
+        ToolDto tool = toolsStaticDb.getToolDetails(checkoutDto.getToolCode());
+        if (tool == null) {
+            rentalAgreementDto.setProcessResult(ProcessResult.builder().status("Error").message("Tool not found").build());
+            return rentalAgreementDto;
+        }
+
+        // Set details in the rental agreement DTO
+        // parse the checkout date once; the LocalDate is used for every date calculation below
+        LocalDate checkoutDate = parseCheckoutDate(checkoutDto.getCheckoutDate());
+        rentalAgreementDto.setRentalDays(checkoutDto.getRentalDays());
+        rentalAgreementDto.setToolCode(checkoutDto.getToolCode());
+        rentalAgreementDto.setDiscountPercent(checkoutDto.getDiscountPercent());
+        rentalAgreementDto.setCheckOutDate(formatDate(checkoutDate));
+        rentalAgreementDto.setToolType(tool.getToolType());
+        rentalAgreementDto.setToolBrand(tool.getBrand());
+        rentalAgreementDto.setDueDate(formatDate(checkoutDate.plusDays(checkoutDto.getRentalDays())));
+        rentalAgreementDto.setDailyRentalCharge(Money.toCents(tool.getDailyCharge()));
+        rentalAgreementDto.setChargeDays(getNumberOfChargeDays(tool.getChargeMask(), checkoutDate, checkoutDto.getRentalDays()));
+        rentalAgreementDto.setPreDiscountCharge(calculatePreDiscountCharge(rentalAgreementDto.getDailyRentalCharge(), rentalAgreementDto.getChargeDays()));
+        rentalAgreementDto.setDiscountPercent(checkoutDto.getDiscountPercent());
+        rentalAgreementDto.setDiscountAmount(calculateDiscountAmount(checkoutDto.getDiscountPercent(), rentalAgreementDto.getPreDiscountCharge()));
+        rentalAgreementDto.setFinalCharge(calculateFinalCharge(rentalAgreementDto.getPreDiscountCharge(), rentalAgreementDto.getDiscountAmount()));
+        rentalAgreementDto.setProcessResult(ProcessResult.builder().status("Ok").message("Checkout Successful").build());
+        return rentalAgreementDto;
+    }
+
     private void saveCheckOutData(RentalAgreementDto rentalAgreement) {
         toolsStaticDb.populateRentalAggreement(rentalAgreement);
     }
@@ -3,10 +3,15 @@ package com.tools.point.of.main;
 import com.tools.point.of.sale.dto.CheckoutDto;
 import com.tools.point.of.sale.dto.RentalAgreementDto;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * The main application class for testing the checkout functionality of different tools.
@@ -18,16 +23,26 @@ import java.util.List;
 public class PointOfSaleMainApp {
     private final CheckoutServiceFromMainClass checkoutService = new CheckoutServiceFromMainClass();
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+    /** Smallest number of checkouts a parallel task handles on its own. */
+    private static final int MIN_CHUNK_SIZE = 256;
+    private static final int CHUNKS_PER_THREAD = 8;
 
     /**
      * The entry point of the application.
      * This method creates instances of `CheckoutDto` for different tools and tests the `checkoutTool` method
      * from the `CheckoutServiceFromMainClass` class.
      * It parses dates, sets rental details, and prints the checkout results for various tools.
+     * With --batch &lt;input&gt; &lt;output&gt; [parallelism] it reprices a CSV or NDJSON file of checkouts
+     * instead (see BatchCheckoutRunner) and prints a throughput and latency summary.
      *
-     * @param args Command-line arguments (not used).
+     * @param args Command-line arguments: none, or --batch input output [parallelism].
+     * @throws IOException If a batch input cannot be read or its output cannot be written.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            runBatch(args);
+            return;
+        }
         PointOfSaleMainApp app = new PointOfSaleMainApp();
         List<CheckoutDto> checkoutDtoList = new ArrayList<>();
         CheckoutDto checkoutDto = new CheckoutDto();
@@ -72,6 +87,16 @@ public class PointOfSaleMainApp {
         app.performCheckouts(checkoutDtoList);
     }
 
+    private static void runBatch(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 4) {
+            System.out.println("usage: PointOfSaleMainApp --batch <input.csv|input.ndjson> <output.csv|output.ndjson> [parallelism]");
+            return;
+        }
+        int parallelism = args.length == 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        BatchCheckoutRunner runner = new BatchCheckoutRunner(new CheckoutServiceFromMainClass(), parallelism);
+        System.out.println(runner.run(Path.of(args[1]), Path.of(args[2])));
+    }
+
     public List<RentalAgreementDto> performCheckouts(List<CheckoutDto> checkoutDtoList) {
         List<RentalAgreementDto> rentalAgreementDtoList = new ArrayList<>();
         for(CheckoutDto checkoutDto : checkoutDtoList){
@@ -80,6 +105,65 @@ public class PointOfSaleMainApp {
         return rentalAgreementDtoList;
     }
 
+    /**
+     * Performs the checkouts in parallel on a work-stealing fork-join pool.
+     * The list is split recursively into chunks of at least MIN_CHUNK_SIZE checkouts (about eight chunks per
+     * thread, so idle threads can steal work); each chunk is priced and saved with one append to the agreement
+     * log, which keeps threads from contending on it. A checkout that fails gets an error result without
+     * affecting the others. Results are not printed.
+     *
+     * @param checkoutDtoList The checkouts.
+     * @param parallelism The number of threads.
+     * @return One result per checkout, in input order.
+     */
+    public List<RentalAgreementDto> performCheckouts(List<CheckoutDto> checkoutDtoList, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism should be 1 or more");
+        }
+        RentalAgreementDto[] results = new RentalAgreementDto[checkoutDtoList.size()];
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, checkoutDtoList.size() / (parallelism * CHUNKS_PER_THREAD));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new CheckoutChunk(checkoutDtoList, results, 0, checkoutDtoList.size(), chunkSize));
+        } finally {
+            pool.shutdown();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Checks out the range [from, to) of the list, splitting it in halves until it is no larger than a chunk.
+     */
+    private class CheckoutChunk extends RecursiveAction {
+        private final List<CheckoutDto> checkoutDtos;
+        private final RentalAgreementDto[] results;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        CheckoutChunk(List<CheckoutDto> checkoutDtos, RentalAgreementDto[] results, int from, int to, int chunkSize) {
+            this.checkoutDtos = checkoutDtos;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                List<RentalAgreementDto> chunk = checkoutService.checkoutTools(checkoutDtos.subList(from, to));
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[from + i] = chunk.get(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CheckoutChunk(checkoutDtos, results, from, middle, chunkSize),
+                    new CheckoutChunk(checkoutDtos, results, middle, to, chunkSize));
+        }
+    }
+
     private RentalAgreementDto performCheckout(CheckoutDto checkoutDto) {
         System.out.println("================== " + checkoutDto.getToolCode() + " checkout start ===================== ");
         RentalAgreementDto rentalAgreementDto = checkoutService.checkoutTool(checkoutDto);
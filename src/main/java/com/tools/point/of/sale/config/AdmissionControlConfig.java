@@ -0,0 +1,118 @@
+package com.tools.point.of.sale.config;
+
+import com.tools.point.of.sale.util.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Puts adaptive admission control in front of the customer facing checkout and quote endpoints, the bulk
+ * endpoints and the catalog import, each with its own limiter so a burst of one cannot use up the limit of
+ * another. Endpoints are grouped by how long they take, since a limiter cuts its limit when a request takes
+ * much longer than its no-load latency: a quote served from the cache would otherwise set the baseline of a
+ * checkout that writes to the database, and a multi-minute import that of a catalog update.
+ * Limits adapt to the observed latency (see AdaptiveConcurrencyLimiter) between the configured bounds; the
+ * max limits of the endpoints sharing a bulkhead lane should add up to no more than the lane's running and
+ * waiting requests, so admitted requests are not turned away by the lane (BulkheadConfig warns otherwise);
+ * rejected requests get 503 with Retry-After. The limiters are reported by the admission actuator endpoint.
+ * Disabled with pos.admission.enabled=false.
+ *
+ * @author melessweldemichael
+ */
+@Configuration
+@ConditionalOnProperty(name = "pos.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    public static final String CHECKOUT = "checkout";
+    public static final String QUOTE = "quote";
+    public static final String BULK = "bulk";
+    public static final String IMPORT = "import";
+    /** Admission control runs before the bulkhead lanes, so rejected requests never wait in a lane. */
+    static final int ADMISSION_ORDER = 0;
+
+    @Value("${pos.admission.min-limit:2}")
+    private int minLimit;
+    @Value("${pos.admission.latency-tolerance:2.0}")
+    private double latencyTolerance;
+    @Value("${pos.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+    @Value("${pos.admission.retry-after:PT1S}")
+    private Duration retryAfter;
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> checkoutAdmissionFilter(
+            @Value("${pos.admission.checkout.initial-limit:20}") int initialLimit,
+            @Value("${pos.admission.checkout.max-limit:40}") int maxLimit) {
+        return registration(CHECKOUT, initialLimit, maxLimit, "/checkout");
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> quoteAdmissionFilter(
+            @Value("${pos.admission.quote.initial-limit:10}") int initialLimit,
+            @Value("${pos.admission.quote.max-limit:18}") int maxLimit) {
+        return registration(QUOTE, initialLimit, maxLimit, "/quote");
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> bulkAdmissionFilter(
+            @Value("${pos.admission.bulk.initial-limit:2}") int initialLimit,
+            @Value("${pos.admission.bulk.max-limit:4}") int maxLimit) {
+        return registration(BULK, initialLimit, maxLimit, "/checkouts", "/tools");
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> importAdmissionFilter(
+            @Value("${pos.admission.import.initial-limit:1}") int initialLimit,
+            @Value("${pos.admission.import.max-limit:2}") int maxLimit) {
+        return registration(IMPORT, initialLimit, maxLimit, "/tools/import");
+    }
+
+    @Bean
+    public AdmissionControlEndpoint admissionControlEndpoint(List<FilterRegistrationBean<AdmissionControlFilter>> registrations) {
+        return new AdmissionControlEndpoint(registrations.stream().map(registration -> registration.getFilter().getLimiter()).toList());
+    }
+
+    private FilterRegistrationBean<AdmissionControlFilter> registration(String name, int initialLimit, int maxLimit, String... urlPatterns) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(name, initialLimit, Math.min(minLimit, initialLimit),
+                maxLimit, latencyTolerance, backoffRatio);
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(limiter, Math.max(1, retryAfter.toSeconds())));
+        registration.setName(name + "AdmissionFilter");
+        registration.setOrder(ADMISSION_ORDER);
+        registration.addUrlPatterns(urlPatterns);
+        return registration;
+    }
+
+    /**
+     * Actuator endpoint (/actuator/admission) reporting the limit, requests in flight,
+     * latencies and admission counts of every limiter.
+     */
+    @Endpoint(id = "admission")
+    public static class AdmissionControlEndpoint {
+
+        private final List<AdaptiveConcurrencyLimiter> limiters;
+
+        public AdmissionControlEndpoint(List<AdaptiveConcurrencyLimiter> limiters) {
+            this.limiters = limiters;
+        }
+
+        @ReadOperation
+        public Map<String, AdaptiveConcurrencyLimiter.State> limiters() {
+            Map<String, AdaptiveConcurrencyLimiter.State> states = new TreeMap<>();
+            for (AdaptiveConcurrencyLimiter limiter : limiters) {
+                AdaptiveConcurrencyLimiter.State state = limiter.getState();
+                states.put(state.name(), state);
+            }
+            return states;
+        }
+    }
+}
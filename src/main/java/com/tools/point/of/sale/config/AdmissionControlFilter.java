@@ -0,0 +1,46 @@
+package com.tools.point.of.sale.config;
+
+import com.tools.point.of.sale.util.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admits requests through an AdaptiveConcurrencyLimiter; when the limit is reached the request is
+ * answered at once with 503 and a Retry-After header instead of queueing for a worker or a connection.
+ *
+ * @author melessweldemichael
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long retryAfterSeconds;
+
+    public AdmissionControlFilter(AdaptiveConcurrencyLimiter limiter, long retryAfterSeconds) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            ServerBusyResponse.write(response, retryAfterSeconds);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permit.complete();
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
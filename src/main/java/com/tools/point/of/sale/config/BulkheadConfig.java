@@ -0,0 +1,117 @@
+package com.tools.point.of.sale.config;
+
+import com.tools.point.of.sale.util.Bulkhead;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Separates bulk and admin work (/tools, /tools/import, /checkouts) from customer facing checkouts
+ * (/checkout, /quote) with one Bulkhead lane each. A lane caps how many of its requests run at once
+ * (its share of Tomcat worker threads and of database connections, since a request holds at most one
+ * connection) and how many wait, so a large catalog sync queues inside its own lane while checkouts
+ * keep their threads and connections. The lane sizes should add up to no more than the connection pool.
+ * Lanes run after admission control and are reported as pos.bulkhead.* metrics tagged with the lane.
+ * Disabled with pos.bulkhead.enabled=false.
+ *
+ * @author melessweldemichael
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "pos.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig {
+
+    /** Lanes run right after the admission control filters. */
+    static final int BULKHEAD_ORDER = AdmissionControlConfig.ADMISSION_ORDER + 1;
+
+    @Value("${pos.bulkhead.retry-after:PT1S}")
+    private Duration retryAfter;
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> checkoutBulkheadFilter(
+            @Value("${pos.bulkhead.checkout.max-concurrent:8}") int maxConcurrent,
+            @Value("${pos.bulkhead.checkout.max-waiting:50}") int maxWaiting,
+            @Value("${pos.bulkhead.checkout.max-wait:PT0.5S}") Duration maxWait) {
+        return registration(new Bulkhead(AdmissionControlConfig.CHECKOUT, maxConcurrent, maxWaiting, maxWait),
+                "/checkout", "/quote");
+    }
+
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> bulkBulkheadFilter(
+            @Value("${pos.bulkhead.bulk.max-concurrent:2}") int maxConcurrent,
+            @Value("${pos.bulkhead.bulk.max-waiting:4}") int maxWaiting,
+            @Value("${pos.bulkhead.bulk.max-wait:PT30S}") Duration maxWait) {
+        return registration(new Bulkhead(AdmissionControlConfig.BULK, maxConcurrent, maxWaiting, maxWait),
+                "/checkouts", "/tools", "/tools/import");
+    }
+
+    /**
+     * Publishes the active, waiting, accepted, rejected and timed out counts of every lane.
+     */
+    @Bean
+    public MeterBinder bulkheadMetrics(List<FilterRegistrationBean<BulkheadFilter>> registrations,
+                                       ObjectProvider<FilterRegistrationBean<AdmissionControlFilter>> admissionRegistrations) {
+        List<Bulkhead> bulkheads = registrations.stream().map(registration -> registration.getFilter().getBulkhead()).toList();
+        int lanesTotal = bulkheads.stream().mapToInt(Bulkhead::getMaxConcurrent).sum();
+        if (lanesTotal > connectionPoolSize) {
+            log.warn("bulkhead lanes allow {} concurrent requests but the connection pool has {} connections",
+                    lanesTotal, connectionPoolSize);
+        }
+        List<FilterRegistrationBean<AdmissionControlFilter>> admissions = admissionRegistrations.orderedStream().toList();
+        for (FilterRegistrationBean<BulkheadFilter> registration : registrations) {
+            warnIfAdmissionExceedsLane(registration, admissions);
+        }
+        return registry -> {
+            for (Bulkhead bulkhead : bulkheads) {
+                String lane = bulkhead.getName();
+                Gauge.builder("pos.bulkhead.active", bulkhead, Bulkhead::getActive).tag("lane", lane).register(registry);
+                Gauge.builder("pos.bulkhead.waiting", bulkhead, Bulkhead::getWaiting).tag("lane", lane).register(registry);
+                Gauge.builder("pos.bulkhead.max.concurrent", bulkhead, Bulkhead::getMaxConcurrent).tag("lane", lane).register(registry);
+                FunctionCounter.builder("pos.bulkhead.accepted", bulkhead, Bulkhead::getAccepted).tag("lane", lane).register(registry);
+                FunctionCounter.builder("pos.bulkhead.rejected", bulkhead, Bulkhead::getRejected).tag("lane", lane).register(registry);
+                FunctionCounter.builder("pos.bulkhead.timed.out", bulkhead, Bulkhead::getTimedOut).tag("lane", lane).register(registry);
+            }
+        };
+    }
+
+    /**
+     * Admission limits above what a lane can run or queue only move the rejections from admission control to the lane.
+     */
+    private static void warnIfAdmissionExceedsLane(FilterRegistrationBean<BulkheadFilter> lane,
+                                                   List<FilterRegistrationBean<AdmissionControlFilter>> admissions) {
+        Set<String> lanePatterns = new HashSet<>(lane.getUrlPatterns());
+        int admitted = admissions.stream()
+                .filter(admission -> lanePatterns.containsAll(admission.getUrlPatterns()))
+                .mapToInt(admission -> admission.getFilter().getLimiter().getMaxLimit())
+                .sum();
+        Bulkhead bulkhead = lane.getFilter().getBulkhead();
+        int capacity = bulkhead.getMaxConcurrent() + bulkhead.getMaxWaiting();
+        if (admitted > capacity) {
+            log.warn("admission control admits up to {} requests to bulkhead lane {} which runs or queues only {}",
+                    admitted, bulkhead.getName(), capacity);
+        }
+    }
+
+    private FilterRegistrationBean<BulkheadFilter> registration(Bulkhead bulkhead, String... urlPatterns) {
+        FilterRegistrationBean<BulkheadFilter> registration =
+                new FilterRegistrationBean<>(new BulkheadFilter(bulkhead, Math.max(1, retryAfter.toSeconds())));
+        registration.setName(bulkhead.getName() + "BulkheadFilter");
+        registration.setOrder(BULKHEAD_ORDER);
+        registration.addUrlPatterns(urlPatterns);
+        return registration;
+    }
+}
@@ -0,0 +1,52 @@
+package com.tools.point.of.sale.config;
+
+import com.tools.point.of.sale.util.Bulkhead;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs requests inside a Bulkhead lane; when the lane and its wait queue are full, or the wait times out,
+ * the request is answered with 503 and a Retry-After header.
+ *
+ * @author melessweldemichael
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final Bulkhead bulkhead;
+    private final long retryAfterSeconds;
+
+    public BulkheadFilter(Bulkhead bulkhead, long retryAfterSeconds) {
+        this.bulkhead = bulkhead;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean entered;
+        try {
+            entered = bulkhead.tryEnter();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            entered = false;
+        }
+        if (!entered) {
+            ServerBusyResponse.write(response, retryAfterSeconds);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.exit();
+        }
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,31 @@
+package com.tools.point.of.sale.config;
+
+import com.tools.point.of.sale.util.HolidayCalendar;
+import com.tools.point.of.sale.util.ToolsRentalUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Installs the holiday calendar configured through the pos.calendar.holidays property.
+ * When the property is empty the default calendar (observed Independence Day and Labor Day) is kept,
+ * so regional holidays can be added through configuration without changing the pricing code.
+ *
+ * @author melessweldemichael
+ */
+@Slf4j
+@Configuration
+public class HolidayCalendarConfig {
+
+    @Value("${pos.calendar.holidays:}")
+    private String holidays;
+
+    @PostConstruct
+    public void installHolidayCalendar() {
+        if (!holidays.isBlank()) {
+            ToolsRentalUtil.useHolidayCalendar(HolidayCalendar.parse(holidays));
+            log.info("using holiday calendar {} ", holidays);
+        }
+    }
+}
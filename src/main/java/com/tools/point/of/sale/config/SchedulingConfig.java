@@ -0,0 +1,14 @@
+package com.tools.point.of.sale.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled background jobs, e.g. the revenue aggregate checkpoint.
+ *
+ * @author melessweldemichael
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
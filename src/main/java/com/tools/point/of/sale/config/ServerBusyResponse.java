@@ -0,0 +1,29 @@
+package com.tools.point.of.sale.config;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+
+/**
+ * The answer of the admission control and bulkhead filters to a request they turn away:
+ * 503 with a Retry-After header and the usual error body.
+ *
+ * @author melessweldemichael
+ */
+final class ServerBusyResponse {
+
+    static final String BODY = "{\"status\":\"Error\",\"message\":\"Server busy, retry later\"}";
+
+    private ServerBusyResponse() {
+    }
+
+    static void write(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(BODY);
+    }
+}
@@ -0,0 +1,66 @@
+package com.tools.point.of.sale.controller;
+
+import com.tools.point.of.sale.dto.CheckedOutUnitDto;
+import com.tools.point.of.sale.dto.ToolAvailabilityDto;
+import com.tools.point.of.sale.entity.Tool;
+import com.tools.point.of.sale.service.AvailabilityIndex;
+import com.tools.point.of.sale.service.ToolCatalog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST controller answering tool availability questions from the in-memory availability index.
+ *
+ *  @author melessweldemichael
+ */
+@RestController
+public class AvailabilityController {
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private ToolCatalog toolCatalog;
+
+    /**
+     * Endpoint to find the units of a tool that are free on every day of a date range.
+     *
+     * @param toolCode The tool code.
+     * @param from The first day, MM/dd/yyyy.
+     * @param to The last day, MM/dd/yyyy.
+     * @return The free units, 404 for an unknown tool or 400 when to is before from.
+     */
+    @GetMapping("/tools/{toolCode}/availability")
+    public ResponseEntity<ToolAvailabilityDto> availability(@PathVariable String toolCode,
+                                                            @RequestParam @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate from,
+                                                            @RequestParam @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Tool tool = toolCatalog.findTool(toolCode);
+        if (tool == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(availabilityIndex.getAvailability(tool, from, to));
+    }
+
+    /**
+     * Endpoint to list the units of a tool that are out on a day.
+     *
+     * @param toolCode The tool code.
+     * @param on The day, MM/dd/yyyy.
+     * @return The units out on the day with their rental agreements.
+     */
+    @GetMapping("/tools/{toolCode}/checked-out")
+    public List<CheckedOutUnitDto> checkedOut(@PathVariable String toolCode,
+                                              @RequestParam @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate on) {
+        return availabilityIndex.getCheckedOut(toolCode, on);
+    }
+}
@@ -3,13 +3,18 @@ package com.tools.point.of.sale.controller;
 import com.tools.point.of.sale.dto.CheckoutDto;
 import com.tools.point.of.sale.dto.RentalAgreementDto;
 import com.tools.point.of.sale.dto.ToolDto;
+import com.tools.point.of.sale.dto.ToolImportResultDto;
 import com.tools.point.of.sale.service.CheckoutService;
+import com.tools.point.of.sale.service.IdempotencyStore;
 import com.tools.point.of.sale.service.ToolService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -27,6 +32,9 @@ public class PointOfSaleController {
     @Autowired
     private ToolService toolService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     /**
      * Endpoint to add a new tool.
      *
@@ -49,15 +57,67 @@ public class PointOfSaleController {
         return toolService.addTools(toolDto);
     }
 
+    /**
+     * Endpoint to insert new tools and update changed ones.
+     *
+     * @param toolDto List of Data Transfer Objects containing details of tools to be upserted.
+     * @return How many tools were inserted, updated and left unchanged.
+     */
+    @PutMapping("/tools")
+    public ToolImportResultDto upsertTools(@RequestBody List<ToolDto> toolDto) {
+        return toolService.upsertTools(toolDto);
+    }
+
+    /**
+     * Endpoint to import a tool feed (NDJSON, or a JSON array) while it is uploaded.
+     *
+     * @param feed The request body.
+     * @return The number of imported and rejected tools and the first rejections.
+     */
+    @PostMapping("/tools/import")
+    public ToolImportResultDto importTools(InputStream feed) {
+        return toolService.importTools(feed);
+    }
+
     /**
      * Endpoint to perform a tool checkout operation.
      *
+     * A request with an Idempotency-Key header is processed once per key; retries with the
+     * same key get the original rental agreement back.
+     *
      * @param checkoutDto Data Transfer Object containing checkout details.
+     * @param idempotencyKey Optional client supplied key identifying the checkout.
      * @return RentalAgreementDto containing details of the rental agreement or an error message.
      */
     @PostMapping("/checkout")
-    public RentalAgreementDto checkout(@RequestBody CheckoutDto checkoutDto) {
+    public RentalAgreementDto checkout(@RequestBody CheckoutDto checkoutDto,
+                                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            return idempotencyStore.checkout(idempotencyKey, checkoutDto, () -> checkoutService.checkoutTool(checkoutDto));
+        }
         // Process the checkout and return the rental agreement details
         return checkoutService.checkoutTool(checkoutDto);
     }
+
+    /**
+     * Endpoint to perform many tool checkouts in one request.
+     *
+     * @param checkoutDtos List of Data Transfer Objects containing checkout details.
+     * @return One RentalAgreementDto per checkout, in request order, each with its own process result.
+     */
+    @PostMapping("/checkouts")
+    public List<RentalAgreementDto> checkouts(@RequestBody List<CheckoutDto> checkoutDtos) {
+        return checkoutService.checkoutTools(checkoutDtos);
+    }
+
+    /**
+     * Endpoint to price a tool checkout without saving a rental agreement.
+     *
+     * @param checkoutDto Data Transfer Object containing checkout details.
+     * @return RentalAgreementDto containing the quoted charges or an error message.
+     */
+    @PostMapping("/quote")
+    public RentalAgreementDto quote(@RequestBody CheckoutDto checkoutDto) {
+        return checkoutService.quoteTool(checkoutDto);
+    }
 }
@@ -0,0 +1,106 @@
+package com.tools.point.of.sale.controller;
+
+import com.tools.point.of.sale.repository.RentalAgreementSummary;
+import com.tools.point.of.sale.service.RentalAgreementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.tools.point.of.sale.service.impl.RentalAgreementServiceImpl.FORMAT_CSV;
+import static com.tools.point.of.sale.service.impl.RentalAgreementServiceImpl.FORMAT_NDJSON;
+
+/**
+ * REST controller for reading rental agreements.
+ *
+ *  @author melessweldemichael
+ */
+@RestController
+public class RentalAgreementController {
+
+    @Autowired
+    private RentalAgreementService rentalAgreementService;
+
+    /**
+     * Endpoint to export all rental agreements, streamed to the client while they are read.
+     *
+     * @param format ndjson (default) or csv.
+     * @return The streamed agreements, or 400 for an unknown format.
+     */
+    @GetMapping("/rental-agreements/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = FORMAT_NDJSON) String format) {
+        MediaType contentType;
+        if (FORMAT_NDJSON.equals(format)) {
+            contentType = MediaType.APPLICATION_NDJSON;
+        } else if (FORMAT_CSV.equals(format)) {
+            contentType = new MediaType("text", "csv");
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> rentalAgreementService.exportAgreements(format, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rental-agreements." + format + "\"")
+                .body(body);
+    }
+
+    /**
+     * Endpoint to list the rental agreements of a tool, ordered by due date.
+     *
+     * @param toolCode The tool code.
+     * @param openOn Optional MM/dd/yyyy date; only agreements due on or after it are listed.
+     * @param page The page number, starting at 0.
+     * @param size The page size.
+     * @return The agreements of the page.
+     */
+    @GetMapping("/rental-agreements/tool/{toolCode}")
+    public List<RentalAgreementSummary> findByTool(@PathVariable String toolCode,
+                                                   @RequestParam(required = false) @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate openOn,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = "50") int size) {
+        return rentalAgreementService.findByTool(toolCode, openOn, page, size);
+    }
+
+    /**
+     * Endpoint to list the rental agreements checked out in a date range, ordered by checkout date.
+     *
+     * @param from The first checkout date, MM/dd/yyyy.
+     * @param to The last checkout date, MM/dd/yyyy.
+     * @param page The page number, starting at 0.
+     * @param size The page size.
+     * @return The agreements of the page.
+     */
+    @GetMapping("/rental-agreements/checked-out")
+    public List<RentalAgreementSummary> findByCheckOutDate(@RequestParam @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate from,
+                                                           @RequestParam @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate to,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "50") int size) {
+        return rentalAgreementService.findByCheckOutDate(from, to, page, size);
+    }
+
+    /**
+     * Endpoint to list the rental agreements due in a date range, ordered by due date.
+     *
+     * @param from The first due date, MM/dd/yyyy.
+     * @param to The last due date, MM/dd/yyyy.
+     * @param page The page number, starting at 0.
+     * @param size The page size.
+     * @return The agreements of the page.
+     */
+    @GetMapping("/rental-agreements/due")
+    public List<RentalAgreementSummary> findByDueDate(@RequestParam @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate from,
+                                                      @RequestParam @DateTimeFormat(pattern = "MM/dd/yyyy") LocalDate to,
+                                                      @RequestParam(defaultValue = "0") int page,
+                                                      @RequestParam(defaultValue = "50") int size) {
+        return rentalAgreementService.findByDueDate(from, to, page, size);
+    }
+}
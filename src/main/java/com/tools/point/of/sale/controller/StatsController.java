@@ -0,0 +1,44 @@
+package com.tools.point.of.sale.controller;
+
+import com.tools.point.of.sale.dto.RevenueStatsDto;
+import com.tools.point.of.sale.dto.RevenueTotalsDto;
+import com.tools.point.of.sale.service.RevenueAggregator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller serving the incrementally maintained revenue totals.
+ *
+ *  @author melessweldemichael
+ */
+@RestController
+public class StatsController {
+
+    @Autowired
+    private RevenueAggregator revenueAggregator;
+
+    /**
+     * Endpoint to read the revenue totals overall, per tool, per tool type and per checkout day.
+     *
+     * @return The current revenue totals.
+     */
+    @GetMapping("/stats")
+    public RevenueStatsDto stats() {
+        return revenueAggregator.getStats();
+    }
+
+    /**
+     * Endpoint to read the revenue totals of one tool.
+     *
+     * @param toolCode The tool code.
+     * @return The current totals of the tool, or 404 if it was never checked out.
+     */
+    @GetMapping("/stats/tool/{toolCode}")
+    public ResponseEntity<RevenueTotalsDto> toolStats(@PathVariable String toolCode) {
+        RevenueTotalsDto totals = revenueAggregator.getToolStats(toolCode);
+        return totals == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(totals);
+    }
+}
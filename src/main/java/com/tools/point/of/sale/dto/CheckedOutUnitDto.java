@@ -0,0 +1,22 @@
+package com.tools.point.of.sale.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+public class CheckedOutUnitDto implements Serializable {
+    private int unit;
+    /** Id of the rental agreement, or null when it was not inserted yet (write-behind). */
+    private Long rentalAgreementId;
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    private LocalDate checkOutDate;
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    private LocalDate dueDate;
+}
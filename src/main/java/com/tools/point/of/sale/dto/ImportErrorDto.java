@@ -0,0 +1,15 @@
+package com.tools.point.of.sale.dto;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+public class ImportErrorDto implements Serializable {
+    private long lineNumber;
+    private String message;
+}
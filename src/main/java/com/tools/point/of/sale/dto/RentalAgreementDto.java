@@ -5,15 +5,14 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
-import com.tools.point.of.sale.util.CurrencySerializer;
+import com.tools.point.of.sale.util.Money;
+import com.tools.point.of.sale.util.RentalAgreementDtoSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
-import java.text.NumberFormat;
-import java.util.Locale;
 
 @Data
 @NoArgsConstructor
@@ -21,9 +20,9 @@ import java.util.Locale;
 @Builder
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+@JsonSerialize(using = RentalAgreementDtoSerializer.class)
 public class RentalAgreementDto implements Serializable {
     private static final long serialVersionUID = 1L;
-    private static final NumberFormat currencyFormatter = NumberFormat.getCurrencyInstance(Locale.US);
 
     private String toolCode;
     private String toolType;
@@ -31,16 +30,16 @@ public class RentalAgreementDto implements Serializable {
     private int rentalDays;
     private String checkOutDate;
     private String dueDate;
-    @JsonSerialize(using = CurrencySerializer.class)
-    private float dailyRentalCharge;
+    /** Daily rental charge in cents. */
+    private long dailyRentalCharge;
     private int chargeDays;
-    @JsonSerialize(using = CurrencySerializer.class)
-    private float preDiscountCharge;
+    /** Pre-discount charge in cents. */
+    private long preDiscountCharge;
     private float discountPercent;
-    @JsonSerialize(using = CurrencySerializer.class)
-    private float discountAmount;
-    @JsonSerialize(using = CurrencySerializer.class)
-    private float finalCharge;
+    /** Discount amount in cents. */
+    private long discountAmount;
+    /** Final charge in cents. */
+    private long finalCharge;
     private ProcessResult processResult;
 
     @Override
@@ -52,12 +51,12 @@ public class RentalAgreementDto implements Serializable {
                 " Rental days:" + rentalDays + "\n" +
                 " Check out date:" + checkOutDate + "\n" +
                 " Due date:" + dueDate + "\n" +
-                " Daily rental charge:" + currencyFormatter.format(dailyRentalCharge) + "\n" +
+                " Daily rental charge:" + Money.format(dailyRentalCharge) + "\n" +
                 " Charge days:" + chargeDays + "\n" +
-                " Pre-discount charge:" + currencyFormatter.format(preDiscountCharge) + "\n" +
+                " Pre-discount charge:" + Money.format(preDiscountCharge) + "\n" +
                 " Discount percent:" + discountPercent + "%" + "\n" +
-                " Discount amount:" + currencyFormatter.format(discountAmount) + "\n" +
-                " Final charge:" + currencyFormatter.format(finalCharge) + "\n" +
+                " Discount amount:" + Money.format(discountAmount) + "\n" +
+                " Final charge:" + Money.format(finalCharge) + "\n" +
                 " processResult:" + processResult +
                 '}';
     }
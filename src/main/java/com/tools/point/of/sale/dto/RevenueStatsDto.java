@@ -0,0 +1,19 @@
+package com.tools.point.of.sale.dto;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+public class RevenueStatsDto implements Serializable {
+    private RevenueTotalsDto total;
+    private Map<String, RevenueTotalsDto> byTool;
+    private Map<String, RevenueTotalsDto> byToolType;
+    private Map<LocalDate, RevenueTotalsDto> byDay;
+}
@@ -0,0 +1,23 @@
+package com.tools.point.of.sale.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tools.point.of.sale.util.CurrencySerializer;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+public class RevenueTotalsDto implements Serializable {
+    private long agreements;
+    private long chargeDays;
+    @JsonSerialize(using = CurrencySerializer.class)
+    private long preDiscountCharge;
+    @JsonSerialize(using = CurrencySerializer.class)
+    private long discountAmount;
+    @JsonSerialize(using = CurrencySerializer.class)
+    private long finalCharge;
+}
@@ -0,0 +1,29 @@
+package com.tools.point.of.sale.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+public class ToolAvailabilityDto implements Serializable {
+    private String toolCode;
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    private LocalDate from;
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    private LocalDate to;
+    /** Units of the tool, or null when its stock is not tracked. */
+    private Integer units;
+    /** Unit numbers (1 to units) with no rental overlapping the range; null when the stock is not tracked. */
+    private List<Integer> freeUnits;
+    /** Number of units with a rental overlapping the range. */
+    private int bookedUnits;
+    /** Rentals overlapping the range that did not fit on any of the units. */
+    private int overbooked;
+}
@@ -1,8 +1,12 @@
 package com.tools.point.of.sale.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.tools.point.of.sale.util.ChargeMask;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 
 import java.io.Serializable;
@@ -20,4 +24,36 @@ public class ToolDto implements Serializable {
     private String weekdayCharge;
     private String weekendCharge;
     private String holidayCharge;
+    private Integer units;
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient Integer chargeMask;
+
+    /**
+     * Returns the charge mask compiled from the weekday/weekend/holiday flags.
+     *
+     * @return The compiled {@link ChargeMask} of the tool.
+     */
+    @JsonIgnore
+    public int getChargeMask() {
+        if (chargeMask == null) {
+            chargeMask = ChargeMask.compile(weekdayCharge, weekendCharge, holidayCharge);
+        }
+        return chargeMask;
+    }
+
+    public void setWeekdayCharge(String weekdayCharge) {
+        this.weekdayCharge = weekdayCharge;
+        this.chargeMask = null;
+    }
+
+    public void setWeekendCharge(String weekendCharge) {
+        this.weekendCharge = weekendCharge;
+        this.chargeMask = null;
+    }
+
+    public void setHolidayCharge(String holidayCharge) {
+        this.holidayCharge = holidayCharge;
+        this.chargeMask = null;
+    }
 }
@@ -0,0 +1,41 @@
+package com.tools.point.of.sale.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a tool import or upsert: how many tools were saved (inserted, updated or already
+ * up to date), how many were rejected, and the first {@link #MAX_ERRORS} rejections with their line numbers.
+ */
+@Data
+@NoArgsConstructor
+@ToString
+public class ToolImportResultDto implements Serializable {
+    public static final int MAX_ERRORS = 100;
+
+    private long imported;
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long failed;
+    private List<ImportErrorDto> errors = new ArrayList<>();
+    private ProcessResult processResult;
+
+    /**
+     * Records a rejected line; only the first {@link #MAX_ERRORS} are kept.
+     *
+     * @param lineNumber The line of the feed.
+     * @param message Why the line was rejected.
+     */
+    public void addError(long lineNumber, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new ImportErrorDto(lineNumber, message));
+        }
+    }
+}
@@ -1,17 +1,35 @@
 package com.tools.point.of.sale.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_rental_agreement_tool_due", columnList = "tool_code, due_date"),
+        @Index(name = "idx_rental_agreement_check_out_date", columnList = "check_out_date"),
+        @Index(name = "idx_rental_agreement_due_date", columnList = "due_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,18 +37,29 @@ import java.io.Serializable;
 public class RentalAgreement implements Serializable {
     private static final long serialVersionUID = 1L;
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rental_agreement_seq")
+    @SequenceGenerator(name = "rental_agreement_seq", sequenceName = "rental_agreement_seq", allocationSize = 50)
     private Long id;
+    @Column(name = "tool_code")
     private String toolCode;
-    private String toolType;
-    private String toolBrand;
+    /** Tool type and brand are read through the tool instead of being copied into every agreement. */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tool_code", insertable = false, updatable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Tool tool;
     private int rentalDays;
-    private String checkOutDate;
-    private String dueDate;
-    private double dailyRentalCharge;
+    private LocalDate checkOutDate;
+    private LocalDate dueDate;
+    @Column(name = "daily_rental_charge_cents")
+    private long dailyRentalCharge;
     private int chargeDays;
-    private double preDiscountCharge;
-    private double discountPercent;
-    private double discountAmount;
-    private double finalCharge;
+    @Column(name = "pre_discount_charge_cents")
+    private long preDiscountCharge;
+    private int discountPercent;
+    @Column(name = "discount_amount_cents")
+    private long discountAmount;
+    @Column(name = "final_charge_cents")
+    private long finalCharge;
 }
@@ -1,7 +1,10 @@
 package com.tools.point.of.sale.entity;
 
+import com.tools.point.of.sale.util.ChargeMask;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.Transient;
 import lombok.*;
 
 import java.io.Serializable;
@@ -21,4 +24,46 @@ public class Tool implements Serializable {
     private String weekdayCharge;
     private String weekendCharge;
     private String holidayCharge;
+    /** Number of rentable units, or null when the stock of the tool is not tracked. */
+    private Integer units;
+    @Transient
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Integer chargeMask;
+
+    /**
+     * Compiles the weekday/weekend/holiday flags into the charge mask once the tool is loaded.
+     */
+    @PostLoad
+    void compileChargeMask() {
+        chargeMask = ChargeMask.compile(weekdayCharge, weekendCharge, holidayCharge);
+    }
+
+    /**
+     * Returns the compiled charge mask, compiling it first for tools that were not loaded by JPA.
+     *
+     * @return The compiled {@link ChargeMask} of the tool.
+     */
+    public int getChargeMask() {
+        if (chargeMask == null) {
+            compileChargeMask();
+        }
+        return chargeMask;
+    }
+
+    public void setWeekdayCharge(String weekdayCharge) {
+        this.weekdayCharge = weekdayCharge;
+        this.chargeMask = null;
+    }
+
+    public void setWeekendCharge(String weekendCharge) {
+        this.weekendCharge = weekendCharge;
+        this.chargeMask = null;
+    }
+
+    public void setHolidayCharge(String holidayCharge) {
+        this.holidayCharge = holidayCharge;
+        this.chargeMask = null;
+    }
 }
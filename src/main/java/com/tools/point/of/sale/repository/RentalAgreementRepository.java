@@ -1,9 +1,20 @@
 package com.tools.point.of.sale.repository;
 
 import com.tools.point.of.sale.entity.RentalAgreement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+
 @Repository
 public interface RentalAgreementRepository extends JpaRepository<RentalAgreement, Long> {
+    Slice<RentalAgreementSummary> findByToolCode(String toolCode, Pageable pageable);
+
+    Slice<RentalAgreementSummary> findByToolCodeAndDueDateGreaterThanEqual(String toolCode, LocalDate dueDate, Pageable pageable);
+
+    Slice<RentalAgreementSummary> findByCheckOutDateBetween(LocalDate from, LocalDate to, Pageable pageable);
+
+    Slice<RentalAgreementSummary> findByDueDateBetween(LocalDate from, LocalDate to, Pageable pageable);
 }
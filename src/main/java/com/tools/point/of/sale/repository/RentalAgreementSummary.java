@@ -0,0 +1,27 @@
+package com.tools.point.of.sale.repository;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tools.point.of.sale.util.CurrencySerializer;
+
+import java.time.LocalDate;
+
+/**
+ * The columns of a rental agreement shown in list views; queries returning it select only these columns.
+ */
+public interface RentalAgreementSummary {
+    Long getId();
+
+    String getToolCode();
+
+    int getRentalDays();
+
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    LocalDate getCheckOutDate();
+
+    @JsonFormat(pattern = "MM/dd/yyyy")
+    LocalDate getDueDate();
+
+    @JsonSerialize(using = CurrencySerializer.class)
+    long getFinalCharge();
+}
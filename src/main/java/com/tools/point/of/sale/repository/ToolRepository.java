@@ -5,5 +5,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ToolRepository extends JpaRepository<Tool, String> {
+public interface ToolRepository extends JpaRepository<Tool, String>, ToolRepositoryCustom {
 }
@@ -0,0 +1,12 @@
+package com.tools.point.of.sale.repository;
+
+import com.tools.point.of.sale.entity.Tool;
+
+import java.util.Collection;
+
+public interface ToolRepositoryCustom {
+    UpsertCounts upsertAll(Collection<Tool> tools);
+
+    record UpsertCounts(int inserted, int updated, int unchanged) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.tools.point.of.sale.repository;
+
+import com.tools.point.of.sale.entity.Tool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Set-based upsert of tools. Tool has an assigned id, so JPA's saveAll merges every tool with
+ * its own SELECT; here each chunk costs one SELECT ... IN for the existing rows and one JDBC batch
+ * of MERGE statements for the new and changed rows only. Callers provide the transaction.
+ *
+ * @author melessweldemichael
+ */
+public class ToolRepositoryImpl implements ToolRepositoryCustom {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final String SELECT_EXISTING = "SELECT tool_code, tool_type, brand, daily_charge, "
+            + "weekday_charge, weekend_charge, holiday_charge, units FROM tool WHERE tool_code IN (%s)";
+    private static final String MERGE = "MERGE INTO tool (tool_code, tool_type, brand, daily_charge, "
+            + "weekday_charge, weekend_charge, holiday_charge, units) KEY (tool_code) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts new tools and updates changed ones; tools equal to their stored row are not written.
+     * When a tool code occurs more than once, the last occurrence wins.
+     *
+     * @param tools The tools to upsert.
+     * @return How many rows were inserted, updated and left unchanged.
+     */
+    @Override
+    public UpsertCounts upsertAll(Collection<Tool> tools) {
+        Map<String, Tool> latest = new LinkedHashMap<>();
+        for (Tool tool : tools) {
+            latest.put(tool.getToolCode(), tool);
+        }
+        List<Tool> distinct = new ArrayList<>(latest.values());
+        int inserted = 0;
+        int updated = 0;
+        int unchanged = 0;
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            List<Tool> chunk = distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size()));
+            Map<String, Tool> existing = findExisting(chunk);
+            List<Tool> changed = new ArrayList<>(chunk.size());
+            for (Tool tool : chunk) {
+                Tool current = existing.get(tool.getToolCode());
+                if (current == null) {
+                    inserted++;
+                    changed.add(tool);
+                } else if (sameValues(current, tool)) {
+                    unchanged++;
+                } else {
+                    updated++;
+                    changed.add(tool);
+                }
+            }
+            if (!changed.isEmpty()) {
+                jdbcTemplate.batchUpdate(MERGE, changed, changed.size(), (ps, tool) -> {
+                    ps.setString(1, tool.getToolCode());
+                    ps.setString(2, tool.getToolType());
+                    ps.setString(3, tool.getBrand());
+                    ps.setFloat(4, tool.getDailyCharge());
+                    ps.setString(5, tool.getWeekdayCharge());
+                    ps.setString(6, tool.getWeekendCharge());
+                    ps.setString(7, tool.getHolidayCharge());
+                    ps.setObject(8, tool.getUnits(), Types.INTEGER);
+                });
+            }
+        }
+        return new UpsertCounts(inserted, updated, unchanged);
+    }
+
+    private Map<String, Tool> findExisting(List<Tool> chunk) {
+        String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+        Object[] toolCodes = chunk.stream().map(Tool::getToolCode).toArray();
+        Map<String, Tool> existing = new HashMap<>();
+        jdbcTemplate.query(String.format(SELECT_EXISTING, placeholders), rs -> {
+            Tool tool = Tool.builder()
+                    .toolCode(rs.getString(1))
+                    .toolType(rs.getString(2))
+                    .brand(rs.getString(3))
+                    .dailyCharge(rs.getFloat(4))
+                    .weekdayCharge(rs.getString(5))
+                    .weekendCharge(rs.getString(6))
+                    .holidayCharge(rs.getString(7))
+                    .units(rs.getObject(8, Integer.class))
+                    .build();
+            existing.put(tool.getToolCode(), tool);
+        }, toolCodes);
+        return existing;
+    }
+
+    private static boolean sameValues(Tool current, Tool tool) {
+        return Objects.equals(current.getToolType(), tool.getToolType())
+                && Objects.equals(current.getBrand(), tool.getBrand())
+                && Float.compare(current.getDailyCharge(), tool.getDailyCharge()) == 0
+                && Objects.equals(current.getWeekdayCharge(), tool.getWeekdayCharge())
+                && Objects.equals(current.getWeekendCharge(), tool.getWeekendCharge())
+                && Objects.equals(current.getHolidayCharge(), tool.getHolidayCharge())
+                && Objects.equals(current.getUnits(), tool.getUnits());
+    }
+}
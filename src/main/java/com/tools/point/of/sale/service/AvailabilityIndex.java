@@ -0,0 +1,21 @@
+package com.tools.point.of.sale.service;
+
+import com.tools.point.of.sale.dto.CheckedOutUnitDto;
+import com.tools.point.of.sale.dto.ToolAvailabilityDto;
+import com.tools.point.of.sale.entity.RentalAgreement;
+import com.tools.point.of.sale.entity.Tool;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AvailabilityIndex {
+    void record(RentalAgreement rentalAgreement);
+
+    ToolAvailabilityDto getAvailability(Tool tool, LocalDate from, LocalDate to);
+
+    List<CheckedOutUnitDto> getCheckedOut(String toolCode, LocalDate date);
+
+    void rebuild();
+
+    void prune();
+}
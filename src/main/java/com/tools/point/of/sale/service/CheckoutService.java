@@ -4,8 +4,15 @@ import com.tools.point.of.sale.dto.CheckoutDto;
 import com.tools.point.of.sale.dto.RentalAgreementDto;
 import jakarta.transaction.Transactional;
 
+import java.util.List;
+
 public interface CheckoutService {
 
     @Transactional
     RentalAgreementDto checkoutTool(CheckoutDto rental);
+
+    RentalAgreementDto quoteTool(CheckoutDto rental);
+
+    @Transactional
+    List<RentalAgreementDto> checkoutTools(List<CheckoutDto> rentals);
 }
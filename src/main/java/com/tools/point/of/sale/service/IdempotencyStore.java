@@ -0,0 +1,10 @@
+package com.tools.point.of.sale.service;
+
+import com.tools.point.of.sale.dto.CheckoutDto;
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyStore {
+    RentalAgreementDto checkout(String idempotencyKey, CheckoutDto checkoutDto, Supplier<RentalAgreementDto> checkout);
+}
@@ -0,0 +1,18 @@
+package com.tools.point.of.sale.service;
+
+import com.tools.point.of.sale.repository.RentalAgreementSummary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RentalAgreementService {
+    void exportAgreements(String format, OutputStream out) throws IOException;
+
+    List<RentalAgreementSummary> findByTool(String toolCode, LocalDate openOn, int page, int size);
+
+    List<RentalAgreementSummary> findByCheckOutDate(LocalDate from, LocalDate to, int page, int size);
+
+    List<RentalAgreementSummary> findByDueDate(LocalDate from, LocalDate to, int page, int size);
+}
@@ -0,0 +1,16 @@
+package com.tools.point.of.sale.service;
+
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+import com.tools.point.of.sale.dto.RevenueStatsDto;
+import com.tools.point.of.sale.dto.RevenueTotalsDto;
+import com.tools.point.of.sale.entity.RentalAgreement;
+
+public interface RevenueAggregator {
+    void record(RentalAgreementDto rentalAgreementDto, RentalAgreement rentalAgreement);
+
+    RevenueStatsDto getStats();
+
+    RevenueTotalsDto getToolStats(String toolCode);
+
+    void checkpoint();
+}
@@ -0,0 +1,25 @@
+package com.tools.point.of.sale.service;
+
+import com.tools.point.of.sale.entity.Tool;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+public interface ToolCatalog {
+    Tool findTool(String toolCode);
+
+    Map<String, Tool> findTools(Collection<String> toolCodes);
+
+    void publish(Iterable<Tool> tools);
+
+    void reload();
+
+    /**
+     * Published after tools in the catalog changed.
+     *
+     * @param toolCodes The changed tools, or null when the whole catalog was reloaded.
+     */
+    record ChangedEvent(Set<String> toolCodes) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.tools.point.of.sale.service;
+
+import com.tools.point.of.sale.entity.Tool;
+
+import java.time.LocalDate;
+
+public interface ToolInventory {
+    Reservation reserve(Tool tool, LocalDate checkOutDate, LocalDate dueDate);
+
+    Integer getAvailableUnits(Tool tool);
+
+    void releaseReturned();
+
+    /**
+     * A unit held for a checkout from its checkout date until its due date.
+     */
+    interface Reservation {
+        /** Reservation of a tool whose stock is not tracked. */
+        Reservation NONE = () -> {
+        };
+
+        /**
+         * Gives the unit back before its due date, e.g. when the checkout is rolled back.
+         * Releasing more than once has no further effect.
+         */
+        void release();
+    }
+}
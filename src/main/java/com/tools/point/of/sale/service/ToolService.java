@@ -1,11 +1,17 @@
 package com.tools.point.of.sale.service;
 
 import com.tools.point.of.sale.dto.ToolDto;
+import com.tools.point.of.sale.dto.ToolImportResultDto;
 
+import java.io.InputStream;
 import java.util.List;
 
 public interface ToolService {
     public String addTool(ToolDto tool);
 
     String addTools(List<ToolDto> tool);
+
+    ToolImportResultDto upsertTools(List<ToolDto> tools);
+
+    ToolImportResultDto importTools(InputStream feed);
 }
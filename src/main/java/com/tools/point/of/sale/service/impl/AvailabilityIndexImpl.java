@@ -0,0 +1,287 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.dto.CheckedOutUnitDto;
+import com.tools.point.of.sale.dto.ToolAvailabilityDto;
+import com.tools.point.of.sale.entity.RentalAgreement;
+import com.tools.point.of.sale.entity.Tool;
+import com.tools.point.of.sale.service.AvailabilityIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Date-range availability of tools, indexed from the rental agreements that are not due yet.
+ * Every agreement is an interval [checkOutDate, dueDate) (a unit is back on its due date) assigned to
+ * a unit of its tool: the first unit with no overlapping interval. When an agreement arriving out of checkout
+ * date order fits on none of the units, the tool's agreements are re-packed in checkout date order, which
+ * needs only as many units as the most agreements out on one day (unit numbers may change then), so live
+ * updates and a rebuild after a restart report the same availability. The intervals of one unit never
+ * overlap, so each unit is a TreeMap keyed by checkout date and one floor lookup tells whether the unit
+ * is free in a range or out on a date; a query costs O(units * log(agreements per unit)) and never
+ * touches the database. Agreements that fit on none of the tool's units are kept on extra overflow
+ * units and reported as overbooked; tools without units get as many units as their agreements need.
+ * The index is built from the repository on startup, updated when a checkout commits and pruned
+ * of returned agreements daily (pos.availability.prune-cron). It is per application instance.
+ *
+ * @author melessweldemichael
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class AvailabilityIndexImpl implements AvailabilityIndex {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Clock clock = Clock.systemDefaultZone();
+    private final ConcurrentMap<String, ToolBookings> bookingsByTool = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes every rental agreement that is not due yet, in checkout date order
+     * so units are assigned as tightly as possible.
+     */
+    @PostConstruct
+    @Override
+    public void rebuild() {
+        Map<String, ToolBookings> rebuilt = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT id, tool_code, check_out_date, due_date FROM rental_agreement "
+                + "WHERE tool_code IS NOT NULL AND due_date > ? ORDER BY check_out_date, id", rs -> {
+            rebuilt.computeIfAbsent(rs.getString(2), key -> new ToolBookings())
+                    .addInOrder(new Booking(rs.getLong(1), rs.getObject(3, LocalDate.class), rs.getObject(4, LocalDate.class)));
+        }, today());
+        bookingsByTool.clear();
+        bookingsByTool.putAll(rebuilt);
+        log.info("availability index built for {} tools", rebuilt.size());
+    }
+
+    /**
+     * Indexes a rental agreement once the surrounding transaction commits,
+     * or immediately when there is no transaction.
+     *
+     * @param rentalAgreement The saved rental agreement.
+     */
+    @Override
+    public void record(RentalAgreement rentalAgreement) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(rentalAgreement);
+                }
+            });
+        } else {
+            add(rentalAgreement);
+        }
+    }
+
+    /**
+     * @param tool The tool.
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @return The units of the tool that are free on every day of the range.
+     */
+    @Override
+    public ToolAvailabilityDto getAvailability(Tool tool, LocalDate from, LocalDate to) {
+        LocalDate end = to.plusDays(1);
+        Integer units = tool.getUnits();
+        List<Integer> freeUnits = units == null ? null : new ArrayList<>();
+        int bookedUnits = 0;
+        int overbooked = 0;
+        ToolBookings bookings = bookingsByTool.get(tool.getToolCode());
+        int indexedUnits = 0;
+        if (bookings != null) {
+            bookings.lock.readLock().lock();
+            try {
+                indexedUnits = bookings.units.size();
+                for (int unit = 0; unit < indexedUnits; unit++) {
+                    boolean free = isFree(bookings.units.get(unit), from, end);
+                    if (units != null && unit >= units) {
+                        overbooked += free ? 0 : 1;
+                    } else if (free) {
+                        if (freeUnits != null) {
+                            freeUnits.add(unit + 1);
+                        }
+                    } else {
+                        bookedUnits++;
+                    }
+                }
+            } finally {
+                bookings.lock.readLock().unlock();
+            }
+        }
+        if (units != null) {
+            for (int unit = indexedUnits; unit < units; unit++) {
+                freeUnits.add(unit + 1);
+            }
+        }
+        return ToolAvailabilityDto.builder()
+                .toolCode(tool.getToolCode())
+                .from(from)
+                .to(to)
+                .units(units)
+                .freeUnits(freeUnits)
+                .bookedUnits(bookedUnits)
+                .overbooked(overbooked)
+                .build();
+    }
+
+    /**
+     * @param toolCode The tool code.
+     * @param date The day.
+     * @return The units of the tool that are out on the day, with their rental agreements.
+     */
+    @Override
+    public List<CheckedOutUnitDto> getCheckedOut(String toolCode, LocalDate date) {
+        ToolBookings bookings = bookingsByTool.get(toolCode);
+        if (bookings == null) {
+            return Collections.emptyList();
+        }
+        List<CheckedOutUnitDto> checkedOut = new ArrayList<>();
+        bookings.lock.readLock().lock();
+        try {
+            for (int unit = 0; unit < bookings.units.size(); unit++) {
+                Map.Entry<LocalDate, Booking> entry = bookings.units.get(unit).floorEntry(date);
+                if (entry != null && entry.getValue().dueDate().isAfter(date)) {
+                    Booking booking = entry.getValue();
+                    checkedOut.add(new CheckedOutUnitDto(unit + 1, booking.id(), booking.checkOutDate(), booking.dueDate()));
+                }
+            }
+        } finally {
+            bookings.lock.readLock().unlock();
+        }
+        return checkedOut;
+    }
+
+    /**
+     * Drops the agreements that are due today or earlier; unit numbers stay as they are.
+     */
+    @Scheduled(cron = "${pos.availability.prune-cron:0 0 0 * * *}")
+    @Override
+    public void prune() {
+        LocalDate today = today();
+        int pruned = 0;
+        for (ToolBookings bookings : bookingsByTool.values()) {
+            bookings.lock.writeLock().lock();
+            try {
+                for (TreeMap<LocalDate, Booking> unit : bookings.units) {
+                    // intervals of a unit do not overlap, so they are due in checkout date order
+                    while (!unit.isEmpty() && !unit.firstEntry().getValue().dueDate().isAfter(today)) {
+                        unit.pollFirstEntry();
+                        pruned++;
+                    }
+                }
+            } finally {
+                bookings.lock.writeLock().unlock();
+            }
+        }
+        if (pruned > 0) {
+            log.info("pruned {} returned rentals from the availability index", pruned);
+        }
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private void add(RentalAgreement rentalAgreement) {
+        if (rentalAgreement.getToolCode() == null || !rentalAgreement.getDueDate().isAfter(today())) {
+            return;
+        }
+        bookingsByTool.computeIfAbsent(rentalAgreement.getToolCode(), key -> new ToolBookings())
+                .add(new Booking(rentalAgreement.getId(), rentalAgreement.getCheckOutDate(), rentalAgreement.getDueDate()));
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * A unit is free in [start, end) when the last interval starting before end is over by start;
+     * its intervals do not overlap, so every earlier one is over too.
+     */
+    private static boolean isFree(TreeMap<LocalDate, Booking> unit, LocalDate start, LocalDate end) {
+        Map.Entry<LocalDate, Booking> last = unit.lowerEntry(end);
+        return last == null || !last.getValue().dueDate().isAfter(start);
+    }
+
+    private static final class ToolBookings {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        /** Intervals per unit (unit number = index + 1), keyed by checkout date. */
+        final List<TreeMap<LocalDate, Booking>> units = new ArrayList<>();
+
+        /**
+         * Adds a booking arriving in any order; re-packs the tool when it would need another unit.
+         */
+        void add(Booking booking) {
+            lock.writeLock().lock();
+            try {
+                if (place(booking)) {
+                    return;
+                }
+                // first fit in arrival order can strand a booking that fits when placed in checkout date order
+                List<Booking> bookings = new ArrayList<>();
+                units.forEach(unit -> bookings.addAll(unit.values()));
+                bookings.add(booking);
+                bookings.sort(Booking.CHECKOUT_ORDER);
+                units.clear();
+                bookings.forEach(this::placeOrAddUnit);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Adds a booking arriving in checkout date order, where first fit already uses the fewest units.
+         */
+        void addInOrder(Booking booking) {
+            lock.writeLock().lock();
+            try {
+                placeOrAddUnit(booking);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private boolean place(Booking booking) {
+            for (TreeMap<LocalDate, Booking> unit : units) {
+                if (isFree(unit, booking.checkOutDate(), booking.dueDate())) {
+                    unit.put(booking.checkOutDate(), booking);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void placeOrAddUnit(Booking booking) {
+            if (!place(booking)) {
+                TreeMap<LocalDate, Booking> unit = new TreeMap<>();
+                unit.put(booking.checkOutDate(), booking);
+                units.add(unit);
+            }
+        }
+    }
+
+    private record Booking(Long id, LocalDate checkOutDate, LocalDate dueDate) {
+        static final Comparator<Booking> CHECKOUT_ORDER = Comparator.comparing(Booking::checkOutDate)
+                .thenComparing(Booking::id, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+}
@@ -6,13 +6,33 @@ import com.tools.point.of.sale.dto.RentalAgreementDto;
 import com.tools.point.of.sale.entity.RentalAgreement;
 import com.tools.point.of.sale.entity.Tool;
 import com.tools.point.of.sale.repository.RentalAgreementRepository;
-import com.tools.point.of.sale.repository.ToolRepository;
+import com.tools.point.of.sale.service.AvailabilityIndex;
 import com.tools.point.of.sale.service.CheckoutService;
+import com.tools.point.of.sale.service.RevenueAggregator;
+import com.tools.point.of.sale.service.ToolCatalog;
+import com.tools.point.of.sale.service.ToolInventory;
+import com.tools.point.of.sale.util.ExpiringCache;
+import com.tools.point.of.sale.util.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static com.tools.point.of.sale.util.ToolsRentalUtil.*;
 
@@ -22,14 +42,30 @@ import static com.tools.point.of.sale.util.ToolsRentalUtil.*;
  *
  * @author melessweldemichael
  */
+@Slf4j
 @Component
 public class CheckoutServiceImpl implements CheckoutService {
 
+    /** Rental agreements inserted per flush by checkoutTools; a multiple of hibernate.jdbc.batch_size. */
+    private static final int BULK_CHUNK_SIZE = 500;
+
     @Autowired
-    private ToolRepository toolRepository;
+    private ToolCatalog toolCatalog;
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
     @Autowired
     private RentalAgreementRepository rentalAgreementRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private RevenueAggregator revenueAggregator;
+    @Autowired
+    private ToolInventory toolInventory;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    /** Present only when pos.write-behind.enabled=true. */
+    @Autowired(required = false)
+    private RentalAgreementWriteBehind rentalAgreementWriteBehind;
+    private ExpiringCache<QuoteKey, RentalAgreementDto> quoteCache = new ExpiringCache<>(10_000, Duration.ofMinutes(5));
 
     /**
      * Processes the checkout of a tool based on the provided checkout details.
@@ -48,56 +84,254 @@ public class CheckoutServiceImpl implements CheckoutService {
             if (rentalAgreementDto.getProcessResult() != null) {
                 return rentalAgreementDto;
             }
-            Tool tool = toolRepository.getById(checkoutDto.getToolCode());
-            rentalAgreementDto.setRentalDays(checkoutDto.getRentalDays());
-            rentalAgreementDto.setToolCode(checkoutDto.getToolCode());
-            rentalAgreementDto.setDiscountPercent(checkoutDto.getDiscountPercent());
-            rentalAgreementDto.setCheckOutDate(extractFormatedDate(checkoutDto.getCheckoutDate()));
-            rentalAgreementDto.setToolType(tool.getToolType());
-            rentalAgreementDto.setToolBrand(tool.getBrand());
-            rentalAgreementDto.setDueDate(setDueDate(checkoutDto.getCheckoutDate(), checkoutDto.getRentalDays()));
-            rentalAgreementDto.setDailyRentalCharge(tool.getDailyCharge());
-            rentalAgreementDto.setChargeDays(getNumberOfChargeDays(tool.getToolType(), checkoutDto.getCheckoutDate(), checkoutDto.getRentalDays()));
-            rentalAgreementDto.setPreDiscountCharge(calculatePreDiscountCharge(rentalAgreementDto.getDailyRentalCharge(), rentalAgreementDto.getChargeDays()));
-            rentalAgreementDto.setDiscountPercent(checkoutDto.getDiscountPercent());
-            rentalAgreementDto.setDiscountAmount(calculateDiscountAmount(checkoutDto.getDiscountPercent(), rentalAgreementDto.getPreDiscountCharge()));
-            rentalAgreementDto.setFinalCharge(calculateFinalCharge(rentalAgreementDto.getPreDiscountCharge(), rentalAgreementDto.getDiscountAmount()));
-            rentalAgreementDto.setProcessResult(ProcessResult.builder().status("Ok").message("Checkout Successful").build());
-            saveCheckOutData(buildRentalAgreement(rentalAgreementDto));
+            Tool tool = toolCatalog.findTool(checkoutDto.getToolCode());
+            if (tool == null) {
+                throw new EntityNotFoundException("Tool not found " + checkoutDto.getToolCode());
+            }
+            LocalDate checkoutDate = parseCheckoutDate(checkoutDto.getCheckoutDate());
+            ToolInventory.Reservation reservation = reserveUnit(tool, checkoutDate, checkoutDate.plusDays(checkoutDto.getRentalDays()));
+            if (reservation == null) {
+                rentalAgreementDto.setProcessResult(outOfStock());
+                return rentalAgreementDto;
+            }
+            RentalAgreement rentalAgreement;
+            try {
+                priceCheckout(rentalAgreementDto, checkoutDto, checkoutDate, tool);
+                rentalAgreement = buildRentalAgreement(rentalAgreementDto, checkoutDate);
+                saveCheckOutData(rentalAgreement);
+            } catch (RuntimeException ex) {
+                reservation.release();
+                throw ex;
+            }
+            revenueAggregator.record(rentalAgreementDto, rentalAgreement);
+            availabilityIndex.record(rentalAgreement);
             return rentalAgreementDto;
         } catch (Exception ex) {
-            ex.printStackTrace();
+            log.error("checkout of {} failed", checkoutDto.getToolCode(), ex);
+        }
+        return null;
+    }
+
+    /**
+     * Processes a list of checkouts in one pass.
+     * The needed tools are looked up in the tool catalog, every item is validated, takes a unit of
+     * its tool (items of a tool with no unit left get an out of stock error) and is priced,
+     * and the rental agreements are inserted in chunks using JDBC batching; the persistence
+     * context is cleared after each chunk so large imports run in constant memory.
+     *
+     * @param checkoutDtos Data Transfer Objects containing the checkout details.
+     * @return One RentalAgreementDto per checkout, in input order, each with its own process result.
+     */
+    @Transactional
+    @Override
+    public List<RentalAgreementDto> checkoutTools(List<CheckoutDto> checkoutDtos) {
+        Set<String> toolCodes = new HashSet<>();
+        for (CheckoutDto checkoutDto : checkoutDtos) {
+            if (checkoutDto.getToolCode() != null) {
+                toolCodes.add(checkoutDto.getToolCode());
+            }
+        }
+        Map<String, Tool> tools = toolCatalog.findTools(toolCodes);
+
+        List<RentalAgreementDto> rentalAgreementDtos = new ArrayList<>(checkoutDtos.size());
+        List<RentalAgreement> rentalAgreements = new ArrayList<>(BULK_CHUNK_SIZE);
+        for (CheckoutDto checkoutDto : checkoutDtos) {
+            RentalAgreementDto rentalAgreementDto = validateCheckout(checkoutDto);
+            if (rentalAgreementDto.getProcessResult() == null) {
+                Tool tool = tools.get(checkoutDto.getToolCode());
+                if (tool == null) {
+                    rentalAgreementDto.setProcessResult(ProcessResult.builder().status("Error").message("Tool not found").build());
+                } else {
+                    LocalDate checkoutDate = parseCheckoutDate(checkoutDto.getCheckoutDate());
+                    if (reserveUnit(tool, checkoutDate, checkoutDate.plusDays(checkoutDto.getRentalDays())) == null) {
+                        rentalAgreementDto.setProcessResult(outOfStock());
+                        rentalAgreementDtos.add(rentalAgreementDto);
+                        continue;
+                    }
+                    priceCheckout(rentalAgreementDto, checkoutDto, checkoutDate, tool);
+                    RentalAgreement rentalAgreement = buildRentalAgreement(rentalAgreementDto, checkoutDate);
+                    rentalAgreements.add(rentalAgreement);
+                    revenueAggregator.record(rentalAgreementDto, rentalAgreement);
+                    availabilityIndex.record(rentalAgreement);
+                    if (rentalAgreements.size() == BULK_CHUNK_SIZE) {
+                        saveCheckOutData(rentalAgreements);
+                    }
+                }
+            }
+            rentalAgreementDtos.add(rentalAgreementDto);
+        }
+        saveCheckOutData(rentalAgreements);
+        return rentalAgreementDtos;
+    }
+
+    /**
+     * Prices a checkout without saving a rental agreement.
+     * Quotes are memoized by (toolCode, checkout date, rental days, discount) in a bounded cache
+     * whose entries expire after pos.quote.cache.ttl; concurrent identical quotes are computed once.
+     * Quotes of a tool are dropped as soon as the tool changes in the tool catalog.
+     * The returned RentalAgreementDto may be shared between callers and must not be modified.
+     *
+     * @param checkoutDto Data Transfer Object containing the checkout details.
+     * @return RentalAgreementDto containing the quoted charges, or an error message.
+     */
+    @Override
+    public RentalAgreementDto quoteTool(CheckoutDto checkoutDto) {
+        try {
+            RentalAgreementDto rentalAgreementDto = validateCheckout(checkoutDto);
+            // check for invalid checkout values
+            if (rentalAgreementDto.getProcessResult() != null) {
+                return rentalAgreementDto;
+            }
+            LocalDate checkoutDate = parseCheckoutDate(checkoutDto.getCheckoutDate());
+            QuoteKey quoteKey = new QuoteKey(checkoutDto.getToolCode(), checkoutDate,
+                    checkoutDto.getRentalDays(), checkoutDto.getDiscountPercent());
+            return quoteCache.get(quoteKey, () -> {
+                Tool tool = toolCatalog.findTool(quoteKey.toolCode());
+                if (tool == null) {
+                    return null;
+                }
+                priceCheckout(rentalAgreementDto, checkoutDto, checkoutDate, tool);
+                // a quote does not check anything out
+                rentalAgreementDto.setProcessResult(ProcessResult.builder().status("Ok").message("Quote Successful").build());
+                return rentalAgreementDto;
+            });
+        } catch (Exception ex) {
+            log.error("quote of {} failed", checkoutDto.getToolCode(), ex);
         }
         return null;
     }
 
     /**
-     * Saves the rental agreement information to the repository.
+     * Replaces the quote cache with one using the configured size and time to live.
+     *
+     * @param maxSize The maximum number of quotes kept.
+     * @param timeToLive How long a quote is kept.
+     */
+    @Autowired
+    void configureQuoteCache(@Value("${pos.quote.cache.max-size:10000}") int maxSize,
+                             @Value("${pos.quote.cache.ttl:PT5M}") Duration timeToLive) {
+        quoteCache = new ExpiringCache<>(maxSize, timeToLive);
+    }
+
+    /**
+     * Drops the cached quotes of changed tools, so a new price is quoted as soon as it is in the catalog.
+     *
+     * @param event The tools that changed in the tool catalog.
+     */
+    @EventListener
+    public void onToolCatalogChanged(ToolCatalog.ChangedEvent event) {
+        if (event.toolCodes() == null) {
+            quoteCache.invalidateAll();
+        } else {
+            quoteCache.invalidateIf(quoteKey -> event.toolCodes().contains(quoteKey.toolCode()));
+        }
+    }
+
+    /**
+     * Fills the rental agreement with the tool details, dates and charges of the checkout.
+     *
+     * @param rentalAgreementDto The rental agreement to fill.
+     * @param checkoutDto Data Transfer Object containing the checkout details.
+     * @param checkoutDate The parsed checkout date; it is used for every date calculation.
+     * @param tool The tool being checked out.
+     * @return The filled rental agreement.
+     */
+    private RentalAgreementDto priceCheckout(RentalAgreementDto rentalAgreementDto, CheckoutDto checkoutDto, LocalDate checkoutDate, Tool tool) {
+        rentalAgreementDto.setRentalDays(checkoutDto.getRentalDays());
+        rentalAgreementDto.setToolCode(checkoutDto.getToolCode());
+        rentalAgreementDto.setDiscountPercent(checkoutDto.getDiscountPercent());
+        rentalAgreementDto.setCheckOutDate(formatDate(checkoutDate));
+        rentalAgreementDto.setToolType(tool.getToolType());
+        rentalAgreementDto.setToolBrand(tool.getBrand());
+        rentalAgreementDto.setDueDate(formatDate(checkoutDate.plusDays(checkoutDto.getRentalDays())));
+        rentalAgreementDto.setDailyRentalCharge(Money.toCents(tool.getDailyCharge()));
+        rentalAgreementDto.setChargeDays(getNumberOfChargeDays(tool.getChargeMask(), checkoutDate, checkoutDto.getRentalDays()));
+        rentalAgreementDto.setPreDiscountCharge(calculatePreDiscountCharge(rentalAgreementDto.getDailyRentalCharge(), rentalAgreementDto.getChargeDays()));
+        rentalAgreementDto.setDiscountAmount(calculateDiscountAmount(checkoutDto.getDiscountPercent(), rentalAgreementDto.getPreDiscountCharge()));
+        rentalAgreementDto.setFinalCharge(calculateFinalCharge(rentalAgreementDto.getPreDiscountCharge(), rentalAgreementDto.getDiscountAmount()));
+        rentalAgreementDto.setProcessResult(ProcessResult.builder().status("Ok").message("Checkout Successful").build());
+        return rentalAgreementDto;
+    }
+
+    /**
+     * Takes a unit of the tool from the tool inventory from the checkout date until the due date. When the
+     * checkout runs in a transaction the unit is given back if the transaction does not commit.
+     *
+     * @param tool The tool being checked out.
+     * @param checkoutDate The checkout date.
+     * @param dueDate The due date of the checkout.
+     * @return The reservation, or null when the tool is out of stock.
+     */
+    private ToolInventory.Reservation reserveUnit(Tool tool, LocalDate checkoutDate, LocalDate dueDate) {
+        ToolInventory.Reservation reservation = toolInventory.reserve(tool, checkoutDate, dueDate);
+        if (reservation != null && reservation != ToolInventory.Reservation.NONE
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reservation.release();
+                    }
+                }
+            });
+        }
+        return reservation;
+    }
+
+    private static ProcessResult outOfStock() {
+        return ProcessResult.builder().status("Error").message("Tool out of stock").build();
+    }
+
+    /**
+     * Saves the rental agreement information to the repository, or to the write-behind journal when enabled.
      * @param rentalAgreement The RentalAgreement object to be saved.
      */
     private void saveCheckOutData(RentalAgreement rentalAgreement) {
-        rentalAgreementRepository.save(rentalAgreement);
+        if (rentalAgreementWriteBehind != null) {
+            rentalAgreementWriteBehind.append(rentalAgreement);
+        } else {
+            rentalAgreementRepository.save(rentalAgreement);
+        }
+    }
+
+    /**
+     * Saves a chunk of rental agreements as batched inserts and detaches them afterwards.
+     * @param rentalAgreements The RentalAgreement objects to be saved; the list is cleared.
+     */
+    private void saveCheckOutData(List<RentalAgreement> rentalAgreements) {
+        if (rentalAgreements.isEmpty()) {
+            return;
+        }
+        rentalAgreementRepository.saveAll(rentalAgreements);
+        entityManager.flush();
+        entityManager.clear();
+        rentalAgreements.clear();
     }
 
     /**
      * Builds a RentalAgreement entity from the provided RentalAgreementDto.
      * @param rentalAgreementDto Data Transfer Object containing rental agreement details.
+     * @param checkoutDate The parsed checkout date; the due date is derived from it.
      * @return RentalAgreement entity built from the DTO.
      */
-    private RentalAgreement buildRentalAgreement(RentalAgreementDto rentalAgreementDto) {
+    private RentalAgreement buildRentalAgreement(RentalAgreementDto rentalAgreementDto, LocalDate checkoutDate) {
 
         return RentalAgreement.builder().toolCode(rentalAgreementDto.getToolCode())
-                .toolType(rentalAgreementDto.getToolType())
-                .toolBrand(rentalAgreementDto.getToolBrand())
                 .rentalDays(rentalAgreementDto.getRentalDays())
-                .dueDate(rentalAgreementDto.getDueDate())
-                .checkOutDate(rentalAgreementDto.getCheckOutDate())
+                .dueDate(checkoutDate.plusDays(rentalAgreementDto.getRentalDays()))
+                .checkOutDate(checkoutDate)
                 .dailyRentalCharge(rentalAgreementDto.getDailyRentalCharge())
                 .chargeDays(rentalAgreementDto.getChargeDays())
                 .preDiscountCharge(rentalAgreementDto.getPreDiscountCharge())
-                .discountPercent(rentalAgreementDto.getDiscountPercent())
+                .discountPercent(Math.round(rentalAgreementDto.getDiscountPercent()))
                 .discountAmount(rentalAgreementDto.getDiscountAmount())
                 .finalCharge(rentalAgreementDto.getFinalCharge())
                 .build();
     }
+
+    /**
+     * Cache key of a quote: everything the price of a checkout depends on.
+     */
+    private record QuoteKey(String toolCode, LocalDate checkoutDate, int rentalDays, int discountPercent) {
+    }
 }
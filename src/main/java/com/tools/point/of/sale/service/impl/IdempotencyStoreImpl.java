@@ -0,0 +1,70 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.dto.CheckoutDto;
+import com.tools.point.of.sale.dto.ProcessResult;
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+import com.tools.point.of.sale.service.IdempotencyStore;
+import com.tools.point.of.sale.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of each checkout by its Idempotency-Key, so a client retrying a checkout
+ * gets the original rental agreement back instead of a second one being priced and saved.
+ * A retry arriving while the first request is still running waits for its result. Keys are kept
+ * for pos.idempotency.ttl and at most pos.idempotency.max-size keys are kept, oldest evicted first;
+ * the key of a checkout still running is never evicted, so its retries always wait for it.
+ * Failed checkouts (no result) are not remembered, so they can be retried with the same key.
+ * Keys are held in memory and are therefore per application instance.
+ *
+ * @author melessweldemichael
+ */
+@Component
+public class IdempotencyStoreImpl implements IdempotencyStore {
+
+    private ExpiringCache<String, StoredCheckout> checkouts = new ExpiringCache<>(100_000, Duration.ofHours(24));
+
+    /**
+     * Replaces the store with one using the configured size and time to live.
+     *
+     * @param maxSize The maximum number of keys kept.
+     * @param timeToLive How long a key is kept.
+     */
+    @Autowired
+    void configure(@Value("${pos.idempotency.max-size:100000}") int maxSize,
+                   @Value("${pos.idempotency.ttl:PT24H}") Duration timeToLive) {
+        checkouts = new ExpiringCache<>(maxSize, timeToLive);
+    }
+
+    /**
+     * Runs the checkout once per key and returns its stored result for every later request with the key.
+     *
+     * @param idempotencyKey The client supplied key.
+     * @param checkoutDto The checkout details; a key reused with different details is rejected.
+     * @param checkout Performs the checkout.
+     * @return The rental agreement of the first request with the key, or an error message.
+     */
+    @Override
+    public RentalAgreementDto checkout(String idempotencyKey, CheckoutDto checkoutDto, Supplier<RentalAgreementDto> checkout) {
+        StoredCheckout stored = checkouts.get(idempotencyKey, () -> {
+            RentalAgreementDto rentalAgreementDto = checkout.get();
+            return rentalAgreementDto == null ? null : new StoredCheckout(checkoutDto, rentalAgreementDto);
+        });
+        if (stored == null) {
+            return null;
+        }
+        if (!stored.checkoutDto().equals(checkoutDto)) {
+            return RentalAgreementDto.builder()
+                    .processResult(ProcessResult.builder().status("Error").message("Idempotency-Key was used for a different checkout").build())
+                    .build();
+        }
+        return stored.rentalAgreementDto();
+    }
+
+    private record StoredCheckout(CheckoutDto checkoutDto, RentalAgreementDto rentalAgreementDto) {
+    }
+}
@@ -0,0 +1,273 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tools.point.of.sale.repository.RentalAgreementRepository;
+import com.tools.point.of.sale.repository.RentalAgreementSummary;
+import com.tools.point.of.sale.service.RentalAgreementService;
+import com.tools.point.of.sale.util.ToolsRentalUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read access to rental agreements.
+ *
+ * @author melessweldemichael
+ */
+@Component
+public class RentalAgreementServiceImpl implements RentalAgreementService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String SELECT_PAGE = "SELECT ra.id, ra.tool_code, t.tool_type, t.brand, ra.rental_days, ra.check_out_date, "
+            + "ra.due_date, ra.daily_rental_charge_cents, ra.charge_days, ra.pre_discount_charge_cents, ra.discount_percent, "
+            + "ra.discount_amount_cents, ra.final_charge_cents FROM rental_agreement ra LEFT JOIN tool t ON t.tool_code = ra.tool_code "
+            + "WHERE ra.id > ? ORDER BY ra.id LIMIT ?";
+    private static final String[] COLUMNS = {"id", "toolCode", "toolType", "toolBrand", "rentalDays", "checkOutDate",
+            "dueDate", "dailyRentalCharge", "chargeDays", "preDiscountCharge", "discountPercent", "discountAmount", "finalCharge"};
+
+    @Autowired
+    private RentalAgreementRepository rentalAgreementRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${pos.export.page-size:1000}")
+    private int pageSize = 1000;
+
+    /**
+     * Writes every rental agreement, ordered by id, as NDJSON or CSV.
+     * Agreements are read in keyset pages (id greater than the last id written) with a forward-only
+     * cursor, each page in its own short statement, and every page is flushed to the output before
+     * the next is read; no page is kept in memory and no transaction spans the export.
+     * Money is written in dollars with two decimals.
+     *
+     * @param format ndjson or csv.
+     * @param out The stream to write to; it is flushed but not closed.
+     * @throws IOException If the output cannot be written, e.g. because the client went away.
+     */
+    @Override
+    public void exportAgreements(String format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = FORMAT_CSV.equals(format) ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer, objectMapper);
+        try {
+            rowWriter.writeHeader();
+            long lastId = 0;
+            while (true) {
+                PageCursor page = readPage(lastId, rowWriter);
+                writer.flush();
+                if (page.rows < pageSize) {
+                    break;
+                }
+                lastId = page.lastId;
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Lists the rental agreements of a tool ordered by due date, using the (tool_code, due_date) index.
+     *
+     * @param toolCode The tool code.
+     * @param openOn If given, only agreements due on or after this date.
+     * @param page The page number, starting at 0.
+     * @param size The page size, at most MAX_PAGE_SIZE.
+     * @return The agreements of the page.
+     */
+    @Override
+    public List<RentalAgreementSummary> findByTool(String toolCode, LocalDate openOn, int page, int size) {
+        Pageable pageable = pageOf(page, size, "dueDate");
+        if (openOn == null) {
+            return rentalAgreementRepository.findByToolCode(toolCode, pageable).getContent();
+        }
+        return rentalAgreementRepository.findByToolCodeAndDueDateGreaterThanEqual(toolCode, openOn, pageable).getContent();
+    }
+
+    /**
+     * Lists the rental agreements checked out between two dates (inclusive) ordered by checkout date.
+     *
+     * @param from The first checkout date.
+     * @param to The last checkout date.
+     * @param page The page number, starting at 0.
+     * @param size The page size, at most MAX_PAGE_SIZE.
+     * @return The agreements of the page.
+     */
+    @Override
+    public List<RentalAgreementSummary> findByCheckOutDate(LocalDate from, LocalDate to, int page, int size) {
+        return rentalAgreementRepository.findByCheckOutDateBetween(from, to, pageOf(page, size, "checkOutDate")).getContent();
+    }
+
+    /**
+     * Lists the rental agreements due between two dates (inclusive) ordered by due date.
+     *
+     * @param from The first due date.
+     * @param to The last due date.
+     * @param page The page number, starting at 0.
+     * @param size The page size, at most MAX_PAGE_SIZE.
+     * @return The agreements of the page.
+     */
+    @Override
+    public List<RentalAgreementSummary> findByDueDate(LocalDate from, LocalDate to, int page, int size) {
+        return rentalAgreementRepository.findByDueDateBetween(from, to, pageOf(page, size, "dueDate")).getContent();
+    }
+
+    private static Pageable pageOf(int page, int size, String sortProperty) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), Sort.by(sortProperty, "id"));
+    }
+
+    private PageCursor readPage(long afterId, RowWriter rowWriter) {
+        PageCursor page = new PageCursor();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_PAGE, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(pageSize);
+            statement.setLong(1, afterId);
+            statement.setInt(2, pageSize);
+            return statement;
+        }, rs -> {
+            try {
+                rowWriter.writeRow(rs);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            page.rows++;
+            page.lastId = rs.getLong(1);
+        });
+        return page;
+    }
+
+    private static String date(ResultSet rs, int column) throws SQLException {
+        LocalDate date = rs.getObject(column, LocalDate.class);
+        return date == null ? null : ToolsRentalUtil.formatDate(date);
+    }
+
+    private static String dollars(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    private static final class PageCursor {
+        int rows;
+        long lastId;
+    }
+
+    private interface RowWriter {
+        void writeHeader() throws IOException;
+
+        void writeRow(ResultSet rs) throws IOException, SQLException;
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer, ObjectMapper objectMapper) throws IOException {
+            this.writer = writer;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            // rows are flushed into the buffered writer only; the page loop flushes the response
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void writeHeader() {
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws IOException, SQLException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+            generator.writeStringField(COLUMNS[1], rs.getString(2));
+            generator.writeStringField(COLUMNS[2], rs.getString(3));
+            generator.writeStringField(COLUMNS[3], rs.getString(4));
+            generator.writeNumberField(COLUMNS[4], rs.getInt(5));
+            generator.writeStringField(COLUMNS[5], date(rs, 6));
+            generator.writeStringField(COLUMNS[6], date(rs, 7));
+            generator.writeFieldName(COLUMNS[7]);
+            generator.writeNumber(dollars(rs.getLong(8)));
+            generator.writeNumberField(COLUMNS[8], rs.getInt(9));
+            generator.writeFieldName(COLUMNS[9]);
+            generator.writeNumber(dollars(rs.getLong(10)));
+            generator.writeNumberField(COLUMNS[10], rs.getInt(11));
+            generator.writeFieldName(COLUMNS[11]);
+            generator.writeNumber(dollars(rs.getLong(12)));
+            generator.writeFieldName(COLUMNS[12]);
+            generator.writeNumber(dollars(rs.getLong(13)));
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws IOException, SQLException {
+            writer.write(Long.toString(rs.getLong(1)));
+            writeText(rs.getString(2));
+            writeText(rs.getString(3));
+            writeText(rs.getString(4));
+            writeValue(Integer.toString(rs.getInt(5)));
+            writeText(date(rs, 6));
+            writeText(date(rs, 7));
+            writeValue(dollars(rs.getLong(8)));
+            writeValue(Integer.toString(rs.getInt(9)));
+            writeValue(dollars(rs.getLong(10)));
+            writeValue(Integer.toString(rs.getInt(11)));
+            writeValue(dollars(rs.getLong(12)));
+            writeValue(dollars(rs.getLong(13)));
+            writer.write('\n');
+        }
+
+        private void writeValue(String value) throws IOException {
+            writer.write(',');
+            writer.write(value);
+        }
+
+        private void writeText(String value) throws IOException {
+            writer.write(',');
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
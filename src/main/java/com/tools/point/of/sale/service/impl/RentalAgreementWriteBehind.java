@@ -0,0 +1,386 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tools.point.of.sale.entity.RentalAgreement;
+import com.tools.point.of.sale.repository.RentalAgreementRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persistence of rental agreements, enabled with pos.write-behind.enabled=true.
+ *
+ * A checkout appends its agreement to a local journal file and returns as soon as the journal
+ * has been forced to disk. Appends arriving together are written and forced as one group.
+ * A background writer drains the journal into the RentalAgreementRepository in batches; every
+ * batch commits together with the sequence number of its last entry (table write_behind_checkpoint),
+ * so after a restart exactly the entries that were not applied yet are replayed from the journal.
+ * The journal file is truncated once it has grown large and every entry in it has been applied.
+ *
+ * A batch that keeps failing with a non-transient error (e.g. a constraint violation) is split in halves
+ * after pos.write-behind.max-attempts attempts until the failing entry is isolated; that entry is moved to
+ * the rental-agreements.dead-letter file next to the journal and skipped, so it does not hold back the
+ * checkouts journaled after it. Transient errors (e.g. the database being down) are retried until they pass.
+ *
+ * @author melessweldemichael
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "pos.write-behind.enabled", havingValue = "true")
+public class RentalAgreementWriteBehind {
+
+    private static final String JOURNAL_NAME = "rental-agreements";
+    private static final long POLL_MILLIS = 100;
+    private static final long RETRY_MILLIS = 1000;
+
+    @Autowired
+    private RentalAgreementRepository rentalAgreementRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${pos.write-behind.journal-dir:data/journal}")
+    private Path journalDir;
+    @Value("${pos.write-behind.batch-size:500}")
+    private int batchSize;
+    @Value("${pos.write-behind.compact-bytes:67108864}")
+    private long compactBytes;
+    @Value("${pos.write-behind.max-attempts:5}")
+    private int maxAttempts;
+
+    private final BlockingQueue<PendingAppend> pendingAppends = new LinkedBlockingQueue<>();
+    private final BlockingQueue<JournalEntry> unappliedEntries = new LinkedBlockingQueue<>();
+    private final AtomicLong appliedSequence = new AtomicLong();
+    /** Last sequence number written to the journal; only used by the journal thread after start. */
+    private long journaledSequence;
+    private FileChannel journal;
+    private Path deadLetterFile;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean running;
+    private Thread journalWriter;
+    private Thread databaseWriter;
+
+    /**
+     * Appends a rental agreement to the journal and waits until it is durable on disk.
+     * The agreement is inserted into the database later by the background writer.
+     *
+     * @param rentalAgreement The RentalAgreement to persist.
+     */
+    public void append(RentalAgreement rentalAgreement) {
+        if (!running) {
+            throw new IllegalStateException("write-behind journal is not running");
+        }
+        PendingAppend pendingAppend = new PendingAppend(rentalAgreement, new CompletableFuture<>());
+        pendingAppends.add(pendingAppend);
+        try {
+            pendingAppend.durable().join();
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("journal append failed", ex.getCause());
+        }
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS write_behind_checkpoint "
+                + "(journal VARCHAR(64) PRIMARY KEY, applied_sequence BIGINT NOT NULL)");
+        List<Long> checkpoint = jdbcTemplate.queryForList(
+                "SELECT applied_sequence FROM write_behind_checkpoint WHERE journal = ?", Long.class, JOURNAL_NAME);
+        appliedSequence.set(checkpoint.isEmpty() ? 0 : checkpoint.get(0));
+        journaledSequence = appliedSequence.get();
+
+        Files.createDirectories(journalDir);
+        Path journalFile = journalDir.resolve(JOURNAL_NAME + ".journal");
+        deadLetterFile = journalDir.resolve(JOURNAL_NAME + ".dead-letter");
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        truncateTornTail();
+        replay(journalFile);
+        journal.position(journal.size());
+
+        running = true;
+        journalWriter = new Thread(this::writeJournal, "rental-agreement-journal");
+        databaseWriter = new Thread(this::applyJournal, "rental-agreement-writer");
+        journalWriter.start();
+        databaseWriter.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, IOException {
+        running = false;
+        journalWriter.join();
+        databaseWriter.join(TimeUnit.SECONDS.toMillis(30));
+        if (databaseWriter.isAlive()) {
+            log.warn("stopping write-behind with {} unapplied entries; they are replayed on restart", unappliedEntries.size());
+            databaseWriter.interrupt();
+        }
+        journal.close();
+    }
+
+    /**
+     * Drops a partially written last line left behind by a crash, so new entries start on a fresh line.
+     */
+    private void truncateTornTail() throws IOException {
+        long size = journal.size();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long end = size;
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            journal.read(buffer, start);
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    if (start + i + 1 < size) {
+                        log.warn("dropping torn journal tail of {} bytes", size - start - i - 1);
+                        journal.truncate(start + i + 1);
+                    }
+                    return;
+                }
+            }
+            end = start;
+        }
+        journal.truncate(0);
+    }
+
+    private void replay(Path journalFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JournalEntry entry = objectMapper.readValue(line, JournalEntry.class);
+                if (entry.sequence() > appliedSequence.get()) {
+                    unappliedEntries.add(entry);
+                }
+                journaledSequence = Math.max(journaledSequence, entry.sequence());
+            }
+        }
+        if (!unappliedEntries.isEmpty()) {
+            log.info("replaying {} unapplied rental agreements from the journal", unappliedEntries.size());
+        }
+    }
+
+    private void writeJournal() {
+        List<PendingAppend> group = new ArrayList<>();
+        while (running || !pendingAppends.isEmpty()) {
+            try {
+                PendingAppend first = pendingAppends.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                pendingAppends.drainTo(group, batchSize - 1);
+                writeGroup(group);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a group of appends with a single write and a single force, then acknowledges all of them.
+     */
+    private void writeGroup(List<PendingAppend> group) {
+        long startSequence = journaledSequence;
+        long startPosition = -1;
+        try {
+            compactIfApplied();
+            startPosition = journal.size();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            List<JournalEntry> entries = new ArrayList<>(group.size());
+            for (PendingAppend pendingAppend : group) {
+                JournalEntry entry = new JournalEntry(++journaledSequence, pendingAppend.rentalAgreement());
+                out.write(objectMapper.writeValueAsBytes(entry));
+                out.write('\n');
+                entries.add(entry);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            unappliedEntries.addAll(entries);
+            group.forEach(pendingAppend -> pendingAppend.durable().complete(null));
+        } catch (IOException | RuntimeException ex) {
+            log.error("journal write failed {} ", ex.getMessage());
+            journaledSequence = startSequence;
+            rollbackJournal(startPosition);
+            group.forEach(pendingAppend -> pendingAppend.durable().completeExceptionally(ex));
+        }
+    }
+
+    private void rollbackJournal(long position) {
+        if (position < 0) {
+            return;
+        }
+        try {
+            journal.truncate(position);
+            journal.position(position);
+        } catch (IOException ex) {
+            log.error("journal rollback failed {} ", ex.getMessage());
+        }
+    }
+
+    private void compactIfApplied() throws IOException {
+        if (journal.size() > compactBytes && appliedSequence.get() == journaledSequence) {
+            log.info("compacting fully applied journal of {} bytes", journal.size());
+            journal.truncate(0);
+            journal.position(0);
+        }
+    }
+
+    private void applyJournal() {
+        List<JournalEntry> batch = new ArrayList<>();
+        while (running || !unappliedEntries.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    JournalEntry first = unappliedEntries.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    unappliedEntries.drainTo(batch, batchSize - 1);
+                }
+                applyWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies a batch, retrying it every RETRY_MILLIS. Once a non-transient failure has happened
+     * maxAttempts times the batch is split to isolate the failing entry.
+     */
+    private void applyWithRetry(List<JournalEntry> batch) throws InterruptedException {
+        int attempts = 0;
+        while (true) {
+            try {
+                applyBatch(batch);
+                return;
+            } catch (RuntimeException ex) {
+                attempts++;
+                if (attempts >= maxAttempts && !isTransient(ex)) {
+                    isolate(batch, ex);
+                    return;
+                }
+                log.error("write-behind batch of {} failed, retrying {} ", batch.size(), ex.getMessage());
+                Thread.sleep(RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Applies the two halves of a failing batch one after the other; a single failing entry is dead-lettered.
+     */
+    private void isolate(List<JournalEntry> batch, RuntimeException failure) throws InterruptedException {
+        if (batch.size() > 1) {
+            int middle = batch.size() / 2;
+            applyWithRetry(batch.subList(0, middle));
+            applyWithRetry(batch.subList(middle, batch.size()));
+            return;
+        }
+        JournalEntry entry = batch.get(0);
+        while (true) {
+            try {
+                deadLetter(entry, failure);
+                return;
+            } catch (IOException | RuntimeException ex) {
+                log.error("dead-lettering journal entry {} failed, retrying {} ", entry.sequence(), ex.getMessage());
+                Thread.sleep(RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Appends the entry and its error to the dead-letter file, forces it to disk and then moves the checkpoint
+     * past it. A retry after a failed checkpoint update can write the entry to the file a second time.
+     */
+    private void deadLetter(JournalEntry entry, RuntimeException failure) throws IOException {
+        DeadLetter deadLetter = new DeadLetter(entry.sequence(), String.valueOf(failure.getMessage()), entry.rentalAgreement());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(objectMapper.writeValueAsBytes(deadLetter));
+        out.write('\n');
+        try (FileChannel channel = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        transactionTemplate.executeWithoutResult(status -> updateCheckpoint(entry.sequence()));
+        appliedSequence.set(entry.sequence());
+        log.error("moved journal entry {} to {} {} ", entry.sequence(), deadLetterFile, failure.getMessage());
+    }
+
+    private static boolean isTransient(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException || ex instanceof RecoverableDataAccessException
+                || ex instanceof TransactionException;
+    }
+
+    /**
+     * Inserts a batch and records its last sequence number in the same transaction.
+     */
+    private void applyBatch(List<JournalEntry> batch) {
+        long lastSequence = batch.get(batch.size() - 1).sequence();
+        List<RentalAgreement> rentalAgreements = new ArrayList<>(batch.size());
+        for (JournalEntry entry : batch) {
+            // ids from a rolled back attempt must not be reused
+            entry.rentalAgreement().setId(null);
+            rentalAgreements.add(entry.rentalAgreement());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            rentalAgreementRepository.saveAll(rentalAgreements);
+            updateCheckpoint(lastSequence);
+        });
+        appliedSequence.set(lastSequence);
+    }
+
+    private void updateCheckpoint(long sequence) {
+        jdbcTemplate.update("MERGE INTO write_behind_checkpoint (journal, applied_sequence) KEY (journal) VALUES (?, ?)",
+                JOURNAL_NAME, sequence);
+    }
+
+    private record PendingAppend(RentalAgreement rentalAgreement, CompletableFuture<Void> durable) {
+    }
+
+    record JournalEntry(long sequence, RentalAgreement rentalAgreement) {
+    }
+
+    record DeadLetter(long sequence, String error, RentalAgreement rentalAgreement) {
+    }
+}
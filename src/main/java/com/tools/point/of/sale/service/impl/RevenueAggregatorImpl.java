@@ -0,0 +1,377 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+import com.tools.point.of.sale.dto.RevenueStatsDto;
+import com.tools.point.of.sale.dto.RevenueTotalsDto;
+import com.tools.point.of.sale.entity.RentalAgreement;
+import com.tools.point.of.sale.service.RevenueAggregator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Keeps revenue totals (agreements, charge days, pre-discount, discount and final charge) overall,
+ * per tool, per tool type and per checkout day, updated with every committed checkout.
+ * Totals are striped LongAdder accumulators, so concurrent checkouts do not contend, and reading the
+ * stats costs the same however many agreements exist. Changed totals are checkpointed to the
+ * revenue_aggregate table every pos.stats.checkpoint-interval and on shutdown, together with the
+ * highest rental agreement id they include (table revenue_checkpoint), and loaded back on startup.
+ * Agreements inserted after the last checkpoint (e.g. before a crash) are then added from the
+ * rental_agreement table; if the agreement count still does not match, e.g. because ids were committed
+ * out of order, the totals are rebuilt from the rental agreements.
+ * GET /stats is served from a snapshot rebuilt at most every pos.stats.refresh-interval, holding the
+ * pos.stats.max-days latest checkout days, so reading it does not copy every total on each request.
+ *
+ * @author melessweldemichael
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class RevenueAggregatorImpl implements RevenueAggregator {
+
+    private static final String TOTAL = "TOTAL";
+    private static final String TOOL = "TOOL";
+    private static final String TOOL_TYPE = "TOOL_TYPE";
+    private static final String DAY = "DAY";
+    private static final String MERGE = "MERGE INTO revenue_aggregate (dimension, dimension_key, agreements, charge_days, "
+            + "pre_discount_charge_cents, discount_amount_cents, final_charge_cents) KEY (dimension, dimension_key) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String CHECKPOINT_NAME = "revenue";
+    private static final String MERGE_CHECKPOINT = "MERGE INTO revenue_checkpoint (aggregate, applied_agreement_id) "
+            + "KEY (aggregate) VALUES (?, ?)";
+    private static final String TOTALS_COLUMNS = "COUNT(*), COALESCE(SUM(ra.charge_days), 0), "
+            + "COALESCE(SUM(ra.pre_discount_charge_cents), 0), COALESCE(SUM(ra.discount_amount_cents), 0), "
+            + "COALESCE(SUM(ra.final_charge_cents), 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final RevenueTotals total = new RevenueTotals();
+    private final ConcurrentMap<String, RevenueTotals> byTool = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RevenueTotals> byToolType = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<LocalDate, RevenueTotals> byDay = new ConcurrentSkipListMap<>();
+    /** Highest id of the rental agreements added to the totals. */
+    private final AtomicLong appliedAgreementId = new AtomicLong();
+    /** Adding a checkout holds the read lock; taking a checkpoint holds the write lock, so it sees whole checkouts. */
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private long statsRefreshNanos = Duration.ofSeconds(1).toNanos();
+    private int statsMaxDays = 366;
+    private volatile PublishedStats publishedStats;
+
+    /**
+     * Sets how often the GET /stats snapshot is rebuilt and how many checkout days it holds.
+     *
+     * @param refreshInterval The longest time a snapshot is served.
+     * @param maxDays The number of latest checkout days in the snapshot.
+     */
+    @Autowired
+    void configureStats(@Value("${pos.stats.refresh-interval:PT1S}") Duration refreshInterval,
+                        @Value("${pos.stats.max-days:366}") int maxDays) {
+        this.statsRefreshNanos = refreshInterval.toNanos();
+        this.statsMaxDays = maxDays;
+        this.publishedStats = null;
+    }
+
+    /**
+     * Loads the checkpointed totals and adds the rental agreements inserted after the checkpoint,
+     * or rebuilds the totals from the rental agreements when they do not add up.
+     */
+    @PostConstruct
+    void load() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS revenue_aggregate (dimension VARCHAR(16) NOT NULL, "
+                + "dimension_key VARCHAR(255) NOT NULL, agreements BIGINT NOT NULL, charge_days BIGINT NOT NULL, "
+                + "pre_discount_charge_cents BIGINT NOT NULL, discount_amount_cents BIGINT NOT NULL, "
+                + "final_charge_cents BIGINT NOT NULL, PRIMARY KEY (dimension, dimension_key))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS revenue_checkpoint (aggregate VARCHAR(64) PRIMARY KEY, "
+                + "applied_agreement_id BIGINT NOT NULL)");
+        jdbcTemplate.query("SELECT dimension, dimension_key, agreements, charge_days, pre_discount_charge_cents, "
+                + "discount_amount_cents, final_charge_cents FROM revenue_aggregate", rs -> {
+            RevenueTotals totals = totalsOf(rs.getString(1), rs.getString(2));
+            if (totals != null) {
+                totals.add(rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6), rs.getLong(7));
+                totals.dirty.set(false);
+            }
+        });
+        List<Long> checkpoint = jdbcTemplate.queryForList(
+                "SELECT applied_agreement_id FROM revenue_checkpoint WHERE aggregate = ?", Long.class, CHECKPOINT_NAME);
+        appliedAgreementId.set(checkpoint.isEmpty() ? 0 : checkpoint.get(0));
+
+        long agreements = countAgreements();
+        if (total.agreements.sum() == agreements) {
+            return;
+        }
+        addAgreementsAfter(appliedAgreementId.get());
+        if (total.agreements.sum() != agreements) {
+            log.warn("revenue totals count {} agreements but there are {}, rebuilding them", total.agreements.sum(), agreements);
+            jdbcTemplate.update("DELETE FROM revenue_aggregate");
+            total.reset();
+            byTool.clear();
+            byToolType.clear();
+            byDay.clear();
+            appliedAgreementId.set(0);
+            addAgreementsAfter(0);
+        }
+    }
+
+    /**
+     * Adds a checkout to the totals once the surrounding transaction commits,
+     * or immediately when there is no transaction. The id of the rental agreement is read then,
+     * so it may still be unassigned when this is called.
+     *
+     * @param rentalAgreementDto The priced checkout.
+     * @param rentalAgreement The rental agreement saved for the checkout.
+     */
+    @Override
+    public void record(RentalAgreementDto rentalAgreementDto, RentalAgreement rentalAgreement) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(rentalAgreementDto, rentalAgreement);
+                }
+            });
+        } else {
+            apply(rentalAgreementDto, rentalAgreement);
+        }
+    }
+
+    /**
+     * @return The totals overall, per tool, per tool type and per checkout day (the latest pos.stats.max-days days),
+     * at most pos.stats.refresh-interval old.
+     */
+    @Override
+    public RevenueStatsDto getStats() {
+        PublishedStats published = publishedStats;
+        if (published == null || System.nanoTime() - published.publishedAt() >= statsRefreshNanos) {
+            published = publishStats();
+        }
+        return published.stats();
+    }
+
+    /**
+     * @param toolCode The tool code.
+     * @return The current totals of the tool, or null if it was never checked out.
+     */
+    @Override
+    public RevenueTotalsDto getToolStats(String toolCode) {
+        RevenueTotals totals = byTool.get(toolCode);
+        return totals == null ? null : totals.snapshot();
+    }
+
+    /**
+     * Writes the totals changed since the last checkpoint to the revenue_aggregate table.
+     */
+    @Scheduled(fixedDelayString = "${pos.stats.checkpoint-interval:PT1M}", initialDelayString = "${pos.stats.checkpoint-interval:PT1M}")
+    @PreDestroy
+    @Override
+    public void checkpoint() {
+        List<RevenueTotals> written = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        long agreementId;
+        checkpointLock.writeLock().lock();
+        try {
+            collectDirty(TOTAL, Map.of(TOTAL, total), Function.identity(), written, rows);
+            collectDirty(TOOL, byTool, Function.identity(), written, rows);
+            collectDirty(TOOL_TYPE, byToolType, Function.identity(), written, rows);
+            collectDirty(DAY, byDay, LocalDate::toString, written, rows);
+            agreementId = appliedAgreementId.get();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(MERGE, rows);
+                jdbcTemplate.update(MERGE_CHECKPOINT, CHECKPOINT_NAME, agreementId);
+            });
+        } catch (RuntimeException ex) {
+            written.forEach(totals -> totals.dirty.set(true));
+            log.error("revenue checkpoint of {} totals failed {} ", rows.size(), ex.getMessage());
+        }
+    }
+
+    private void apply(RentalAgreementDto rentalAgreementDto, RentalAgreement rentalAgreement) {
+        long chargeDays = rentalAgreementDto.getChargeDays();
+        long preDiscountCharge = rentalAgreementDto.getPreDiscountCharge();
+        long discountAmount = rentalAgreementDto.getDiscountAmount();
+        long finalCharge = rentalAgreementDto.getFinalCharge();
+        checkpointLock.readLock().lock();
+        try {
+            total.add(1, chargeDays, preDiscountCharge, discountAmount, finalCharge);
+            byTool.computeIfAbsent(rentalAgreementDto.getToolCode(), key -> new RevenueTotals())
+                    .add(1, chargeDays, preDiscountCharge, discountAmount, finalCharge);
+            if (rentalAgreementDto.getToolType() != null) {
+                byToolType.computeIfAbsent(rentalAgreementDto.getToolType(), key -> new RevenueTotals())
+                        .add(1, chargeDays, preDiscountCharge, discountAmount, finalCharge);
+            }
+            byDay.computeIfAbsent(rentalAgreement.getCheckOutDate(), key -> new RevenueTotals())
+                    .add(1, chargeDays, preDiscountCharge, discountAmount, finalCharge);
+            // agreements journaled by the write-behind get their id later; the startup count check covers them
+            if (rentalAgreement.getId() != null) {
+                appliedAgreementId.accumulateAndGet(rentalAgreement.getId(), Math::max);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private long countAgreements() {
+        Long agreements = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rental_agreement", Long.class);
+        return agreements == null ? 0 : agreements;
+    }
+
+    /**
+     * Adds the rental agreements with an id above the given one to the totals.
+     */
+    private void addAgreementsAfter(long agreementId) {
+        String from = " FROM rental_agreement ra WHERE ra.id > ? ";
+        long before = total.agreements.sum();
+        jdbcTemplate.query("SELECT " + TOTALS_COLUMNS + from, rs -> {
+            total.add(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5));
+        }, agreementId);
+        if (total.agreements.sum() == before) {
+            return;
+        }
+        jdbcTemplate.query("SELECT ra.tool_code, " + TOTALS_COLUMNS + from + "AND ra.tool_code IS NOT NULL GROUP BY ra.tool_code", rs -> {
+            totalsOf(TOOL, rs.getString(1)).add(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6));
+        }, agreementId);
+        jdbcTemplate.query("SELECT t.tool_type, " + TOTALS_COLUMNS + " FROM rental_agreement ra JOIN tool t ON t.tool_code = ra.tool_code "
+                + "WHERE ra.id > ? AND t.tool_type IS NOT NULL GROUP BY t.tool_type", rs -> {
+            totalsOf(TOOL_TYPE, rs.getString(1)).add(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6));
+        }, agreementId);
+        jdbcTemplate.query("SELECT ra.check_out_date, " + TOTALS_COLUMNS + from + "AND ra.check_out_date IS NOT NULL "
+                + "GROUP BY ra.check_out_date", rs -> {
+            byDay.computeIfAbsent(rs.getObject(1, LocalDate.class), key -> new RevenueTotals())
+                    .add(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6));
+        }, agreementId);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(ra.id)" + from, Long.class, agreementId);
+        if (maxId != null) {
+            appliedAgreementId.accumulateAndGet(maxId, Math::max);
+        }
+        log.info("added {} rental agreements after id {} to the revenue totals", total.agreements.sum() - before, agreementId);
+    }
+
+    /**
+     * Builds the GET /stats snapshot unless another thread has just built one.
+     */
+    private synchronized PublishedStats publishStats() {
+        PublishedStats published = publishedStats;
+        if (published != null && System.nanoTime() - published.publishedAt() < statsRefreshNanos) {
+            return published;
+        }
+        Map<LocalDate, RevenueTotalsDto> days = new TreeMap<>();
+        for (Map.Entry<LocalDate, RevenueTotals> day : byDay.descendingMap().entrySet()) {
+            if (days.size() == statsMaxDays) {
+                break;
+            }
+            days.put(day.getKey(), day.getValue().snapshot());
+        }
+        RevenueStatsDto stats = RevenueStatsDto.builder()
+                .total(total.snapshot())
+                .byTool(snapshot(byTool))
+                .byToolType(snapshot(byToolType))
+                .byDay(days)
+                .build();
+        published = new PublishedStats(stats, System.nanoTime());
+        publishedStats = published;
+        return published;
+    }
+
+    private RevenueTotals totalsOf(String dimension, String key) {
+        switch (dimension) {
+            case TOTAL:
+                return total;
+            case TOOL:
+                return byTool.computeIfAbsent(key, k -> new RevenueTotals());
+            case TOOL_TYPE:
+                return byToolType.computeIfAbsent(key, k -> new RevenueTotals());
+            case DAY:
+                return byDay.computeIfAbsent(LocalDate.parse(key), k -> new RevenueTotals());
+            default:
+                return null;
+        }
+    }
+
+    private static <K> void collectDirty(String dimension, Map<K, RevenueTotals> totalsByKey, Function<K, String> keyText,
+                                         List<RevenueTotals> written, List<Object[]> rows) {
+        totalsByKey.forEach((key, totals) -> {
+            // clear before reading, so an add racing with the checkpoint marks the totals dirty again
+            if (totals.dirty.getAndSet(false)) {
+                RevenueTotalsDto snapshot = totals.snapshot();
+                written.add(totals);
+                rows.add(new Object[]{dimension, keyText.apply(key), snapshot.getAgreements(), snapshot.getChargeDays(),
+                        snapshot.getPreDiscountCharge(), snapshot.getDiscountAmount(), snapshot.getFinalCharge()});
+            }
+        });
+    }
+
+    private static <K extends Comparable<? super K>> Map<K, RevenueTotalsDto> snapshot(Map<K, RevenueTotals> totalsByKey) {
+        Map<K, RevenueTotalsDto> snapshot = new TreeMap<>();
+        totalsByKey.forEach((key, totals) -> snapshot.put(key, totals.snapshot()));
+        return snapshot;
+    }
+
+    static final class RevenueTotals {
+        final LongAdder agreements = new LongAdder();
+        final LongAdder chargeDays = new LongAdder();
+        final LongAdder preDiscountCharge = new LongAdder();
+        final LongAdder discountAmount = new LongAdder();
+        final LongAdder finalCharge = new LongAdder();
+        final AtomicBoolean dirty = new AtomicBoolean();
+
+        void reset() {
+            agreements.reset();
+            chargeDays.reset();
+            preDiscountCharge.reset();
+            discountAmount.reset();
+            finalCharge.reset();
+        }
+
+        void add(long agreements, long chargeDays, long preDiscountCharge, long discountAmount, long finalCharge) {
+            this.agreements.add(agreements);
+            this.chargeDays.add(chargeDays);
+            this.preDiscountCharge.add(preDiscountCharge);
+            this.discountAmount.add(discountAmount);
+            this.finalCharge.add(finalCharge);
+            dirty.set(true);
+        }
+
+        RevenueTotalsDto snapshot() {
+            return new RevenueTotalsDto(agreements.sum(), chargeDays.sum(), preDiscountCharge.sum(),
+                    discountAmount.sum(), finalCharge.sum());
+        }
+    }
+
+    private record PublishedStats(RevenueStatsDto stats, long publishedAt) {
+    }
+}
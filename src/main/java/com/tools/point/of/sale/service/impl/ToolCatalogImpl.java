@@ -0,0 +1,191 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.entity.Tool;
+import com.tools.point.of.sale.repository.ToolRepository;
+import com.tools.point.of.sale.service.ToolCatalog;
+import com.tools.point.of.sale.util.ExpiringCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds every tool in a concurrent hash index so checkouts can look tools up without touching
+ * the database; readers need no locking. Published tools are put into the index one by one,
+ * so publishing a chunk of an import costs the size of the chunk, not of the catalog; a reload
+ * builds a new index and swaps it in. The index holds detached copies of the tool entities, so
+ * no persistence context ever sees them; the returned tools are shared and must not be modified.
+ * Tools missing from the index (e.g. inserted outside this service)
+ * are loaded from the repository once and added; codes that are not in the repository either
+ * are remembered for MISS_TTL, so repeated lookups of an unknown code do not query it again.
+ * A {@link ToolCatalog.ChangedEvent} is published after every change, so caches derived from
+ * tools (e.g. quotes) can drop what they computed from the old values.
+ *
+ * @author melessweldemichael
+ */
+@Slf4j
+@Component
+public class ToolCatalogImpl implements ToolCatalog {
+
+    private static final int MAX_MISSES = 10_000;
+    private static final Duration MISS_TTL = Duration.ofMinutes(1);
+
+    @Autowired
+    private ToolRepository toolRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /** Replaced only by reload; writers hold the lock of this catalog. */
+    private volatile ConcurrentMap<String, Tool> catalog = new ConcurrentHashMap<>();
+    /** Tool codes known to be missing from the repository; the value is always true. */
+    private final ExpiringCache<String, Boolean> misses = new ExpiringCache<>(MAX_MISSES, MISS_TTL);
+
+    /**
+     * Loads all tools into the catalog.
+     */
+    @PostConstruct
+    @Override
+    public synchronized void reload() {
+        ConcurrentMap<String, Tool> tools = new ConcurrentHashMap<>();
+        for (Tool tool : toolRepository.findAll()) {
+            tools.put(tool.getToolCode(), detachedCopy(tool));
+        }
+        catalog = tools;
+        misses.invalidateAll();
+        eventPublisher.publishEvent(new ChangedEvent(null));
+        log.info("tool catalog loaded with {} tools", tools.size());
+    }
+
+    /**
+     * Looks up a tool by its code.
+     *
+     * @param toolCode The tool code.
+     * @return The tool, or null if there is no such tool.
+     */
+    @Override
+    public Tool findTool(String toolCode) {
+        if (toolCode == null) {
+            return null;
+        }
+        Tool tool = catalog.get(toolCode);
+        if (tool != null) {
+            return tool;
+        }
+        // concurrent misses of the same code share one repository lookup
+        misses.get(toolCode, () -> {
+            Tool loaded = toolRepository.findById(toolCode).orElse(null);
+            if (loaded == null) {
+                return Boolean.TRUE;
+            }
+            merge(List.of(detachedCopy(loaded)));
+            return null;
+        });
+        return catalog.get(toolCode);
+    }
+
+    /**
+     * Looks up several tools by their codes.
+     *
+     * @param toolCodes The tool codes.
+     * @return The tools found, by tool code.
+     */
+    @Override
+    public Map<String, Tool> findTools(Collection<String> toolCodes) {
+        Map<String, Tool> current = catalog;
+        Map<String, Tool> tools = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String toolCode : toolCodes) {
+            Tool tool = toolCode == null ? null : current.get(toolCode);
+            if (tool != null) {
+                tools.put(toolCode, tool);
+            } else if (toolCode != null && misses.getIfPresent(toolCode) == null) {
+                missing.add(toolCode);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<Tool> loaded = new ArrayList<>();
+            for (Tool tool : toolRepository.findAllById(missing)) {
+                Tool copy = detachedCopy(tool);
+                tools.put(copy.getToolCode(), copy);
+                loaded.add(copy);
+            }
+            merge(loaded);
+            for (String toolCode : missing) {
+                if (!tools.containsKey(toolCode)) {
+                    misses.get(toolCode, () -> Boolean.TRUE);
+                }
+            }
+        }
+        return tools;
+    }
+
+    /**
+     * Publishes saved tools to the catalog. The tools are copied right away, so the caller may reuse them.
+     * When called inside a transaction the copies are added after the transaction commits, otherwise immediately.
+     *
+     * @param tools The saved tools.
+     */
+    @Override
+    public void publish(Iterable<Tool> tools) {
+        List<Tool> saved = new ArrayList<>();
+        tools.forEach(tool -> saved.add(detachedCopy(tool)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    merge(saved);
+                }
+            });
+        } else {
+            merge(saved);
+        }
+    }
+
+    private void merge(List<Tool> tools) {
+        if (tools.isEmpty()) {
+            return;
+        }
+        Set<String> toolCodes = new HashSet<>();
+        synchronized (this) {
+            for (Tool tool : tools) {
+                catalog.put(tool.getToolCode(), tool);
+                toolCodes.add(tool.getToolCode());
+            }
+        }
+        misses.invalidateIf(toolCodes::contains);
+        eventPublisher.publishEvent(new ChangedEvent(toolCodes));
+    }
+
+    /**
+     * Copies a tool entity into a new instance that no persistence context manages,
+     * with its charge mask already compiled.
+     */
+    private static Tool detachedCopy(Tool tool) {
+        Tool copy = Tool.builder()
+                .toolCode(tool.getToolCode())
+                .toolType(tool.getToolType())
+                .brand(tool.getBrand())
+                .dailyCharge(tool.getDailyCharge())
+                .weekdayCharge(tool.getWeekdayCharge())
+                .weekendCharge(tool.getWeekendCharge())
+                .holidayCharge(tool.getHolidayCharge())
+                .units(tool.getUnits())
+                .build();
+        copy.getChargeMask();
+        return copy;
+    }
+}
@@ -0,0 +1,222 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.entity.Tool;
+import com.tools.point.of.sale.service.ToolInventory;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks how many units of each tool are checked out on each day, for tools with a unit count
+ * (tools without one are not tracked and can always be rented).
+ * A checkout holds one unit from its checkout date until its due date, so a booking for a later date
+ * takes no unit today and a back-dated checkout still holds a unit until it is due. A reservation
+ * only succeeds while fewer than the tool's units are out on every day of [checkout date, due date),
+ * so a tool is never over-allocated; this is the same bound as the per-unit AvailabilityIndex.
+ * Every tool has its own lock, so checkouts of different tools never contend, and no checkout waits
+ * on a database row. Days before today are folded together by releaseReturned, which runs daily
+ * (pos.inventory.release-cron); agreements due today or earlier hold no unit.
+ * The bookings are rebuilt from the open rental agreements on startup and are per application instance.
+ *
+ * @author melessweldemichael
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class ToolInventoryImpl implements ToolInventory {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Clock clock = Clock.systemDefaultZone();
+    private final ConcurrentMap<String, Stock> stocks = new ConcurrentHashMap<>();
+
+    /**
+     * Books the units held by rental agreements that are not due yet.
+     */
+    @PostConstruct
+    void load() {
+        LocalDate today = today();
+        jdbcTemplate.query("SELECT tool_code, check_out_date, due_date, COUNT(*) FROM rental_agreement "
+                + "WHERE tool_code IS NOT NULL AND due_date > ? GROUP BY tool_code, check_out_date, due_date", rs -> {
+            LocalDate checkOutDate = rs.getObject(2, LocalDate.class);
+            LocalDate from = checkOutDate == null || checkOutDate.isBefore(today) ? today : checkOutDate;
+            stocks.computeIfAbsent(rs.getString(1), key -> new Stock())
+                    .book(from, rs.getObject(3, LocalDate.class), rs.getInt(4));
+        }, today);
+        log.info("tool inventory loaded open rentals of {} tools", stocks.size());
+    }
+
+    /**
+     * Takes one unit of the tool from the checkout date until the due date.
+     *
+     * @param tool The tool being checked out.
+     * @param checkOutDate The date the unit goes out; a date before today holds the unit from today.
+     * @param dueDate The date the unit comes back.
+     * @return The reservation, or null when every unit of the tool is checked out on some day of the rental.
+     */
+    @Override
+    public Reservation reserve(Tool tool, LocalDate checkOutDate, LocalDate dueDate) {
+        Integer units = tool.getUnits();
+        LocalDate today = today();
+        if (units == null || !dueDate.isAfter(today)) {
+            return Reservation.NONE;
+        }
+        LocalDate from = checkOutDate.isBefore(today) ? today : checkOutDate;
+        Stock stock = stocks.computeIfAbsent(tool.getToolCode(), key -> new Stock());
+        if (!stock.tryBook(units, from, dueDate)) {
+            return null;
+        }
+        return new UnitReservation(stock, from, dueDate);
+    }
+
+    /**
+     * @param tool The tool.
+     * @return The number of units not checked out today, or null when the tool is not tracked.
+     */
+    @Override
+    public Integer getAvailableUnits(Tool tool) {
+        if (tool.getUnits() == null) {
+            return null;
+        }
+        Stock stock = stocks.get(tool.getToolCode());
+        return Math.max(0, tool.getUnits() - (stock == null ? 0 : stock.outOn(today())));
+    }
+
+    /**
+     * Gives back the units of every agreement that is due today or earlier.
+     */
+    @Scheduled(cron = "${pos.inventory.release-cron:0 0 0 * * *}")
+    @Override
+    public void releaseReturned() {
+        LocalDate today = today();
+        int released = 0;
+        for (Stock stock : stocks.values()) {
+            released += stock.releaseDue(today);
+        }
+        if (released > 0) {
+            log.info("released {} returned tool units", released);
+        }
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * The bookings of one tool; every method holds the tool's lock.
+     */
+    private static final class Stock {
+        /** Change in the units out per date: plus on checkout dates, minus on due dates. */
+        private final TreeMap<LocalDate, Integer> changes = new TreeMap<>();
+        /** Units coming back per due date. */
+        private final TreeMap<LocalDate, Integer> dueBack = new TreeMap<>();
+        /** Checkout dates before this were folded into it by releaseDue. */
+        private LocalDate foldedUntil = LocalDate.MIN;
+
+        synchronized void book(LocalDate from, LocalDate to, int count) {
+            change(from.isBefore(foldedUntil) ? foldedUntil : from, count);
+            change(to, -count);
+            dueBack.merge(to, count, Integer::sum);
+        }
+
+        synchronized boolean tryBook(int units, LocalDate from, LocalDate to) {
+            int out = outOn(from);
+            int mostOut = out;
+            for (int change : changes.subMap(from, false, to, false).values()) {
+                out += change;
+                mostOut = Math.max(mostOut, out);
+            }
+            if (mostOut >= units) {
+                return false;
+            }
+            book(from, to, 1);
+            return true;
+        }
+
+        /**
+         * Gives back a unit before its due date; a unit that already came back is not given back twice.
+         */
+        synchronized void unbook(LocalDate from, LocalDate to) {
+            Integer due = dueBack.get(to);
+            if (due == null) {
+                return;
+            }
+            if (due == 1) {
+                dueBack.remove(to);
+            } else {
+                dueBack.put(to, due - 1);
+            }
+            change(from.isBefore(foldedUntil) ? foldedUntil : from, -1);
+            change(to, 1);
+        }
+
+        synchronized int outOn(LocalDate date) {
+            int out = 0;
+            for (int change : changes.headMap(date, true).values()) {
+                out += change;
+            }
+            return out;
+        }
+
+        /**
+         * Drops the units due by the date and folds the earlier changes into it, so the bookings only span open rentals.
+         *
+         * @return The number of units given back.
+         */
+        synchronized int releaseDue(LocalDate today) {
+            int released = 0;
+            for (Map.Entry<LocalDate, Integer> entry; (entry = dueBack.firstEntry()) != null && !entry.getKey().isAfter(today); ) {
+                released += dueBack.pollFirstEntry().getValue();
+            }
+            int out = outOn(today);
+            changes.headMap(today, true).clear();
+            change(today, out);
+            foldedUntil = today;
+            return released;
+        }
+
+        private void change(LocalDate date, int change) {
+            if (change == 0) {
+                return;
+            }
+            changes.merge(date, change, (current, added) -> current + added == 0 ? null : current + added);
+        }
+    }
+
+    private static final class UnitReservation implements Reservation {
+        private final Stock stock;
+        private final LocalDate from;
+        private final LocalDate dueDate;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        UnitReservation(Stock stock, LocalDate from, LocalDate dueDate) {
+            this.stock = stock;
+            this.from = from;
+            this.dueDate = dueDate;
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                stock.unbook(from, dueDate);
+            }
+        }
+    }
+}
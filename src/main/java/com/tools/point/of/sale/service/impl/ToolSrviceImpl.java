@@ -1,12 +1,24 @@
 package com.tools.point.of.sale.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tools.point.of.sale.dto.ProcessResult;
 import com.tools.point.of.sale.dto.ToolDto;
+import com.tools.point.of.sale.dto.ToolImportResultDto;
 import com.tools.point.of.sale.entity.Tool;
 import com.tools.point.of.sale.repository.ToolRepository;
+import com.tools.point.of.sale.repository.ToolRepositoryCustom.UpsertCounts;
+import com.tools.point.of.sale.service.ToolCatalog;
 import com.tools.point.of.sale.service.ToolService;
+import com.tools.point.of.sale.util.ToolFeedReader;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 /**
@@ -16,42 +28,162 @@ import java.util.List;
  * @author melessweldemichael
  */
 
+@Slf4j
 @Component
 public class ToolSrviceImpl implements ToolService {
 
+    /** Tools saved per transaction by importTools; a multiple of hibernate.jdbc.batch_size. */
+    private static final int IMPORT_CHUNK_SIZE = 500;
+
     @Autowired
     private ToolRepository toolRepository;
+    @Autowired
+    private ToolCatalog toolCatalog;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /**
      * Adds a single tool to the repository.
-     * Converts the provided ToolDto to a Tool entity and saves it.
+     * Converts the provided ToolDto to a Tool entity, saves it and publishes it to the tool catalog.
      *
      * @param tool Data Transfer Object containing the details of the tool to be added.
      * @return A confirmation message indicating that the tool has been saved.
      */
     @Override
     public String addTool(ToolDto tool) {
-        toolRepository.save(createToolEntity(tool));
+        toolCatalog.publish(List.of(toolRepository.save(createToolEntity(tool))));
         return "Saved";
     }
     /**
      * Adds multiple tools to the repository.
-     * Converts the provided list of ToolDto objects to a list of Tool entities and saves them.
+     * Converts the provided list of ToolDto objects to a list of Tool entities, upserts them
+     * and publishes them to the tool catalog.
      * @param tools List of Data Transfer Objects containing the details of the tools to be added.
      * @return A confirmation message indicating that the tools have been saved.
      */
+    @Transactional
     @Override
     public String addTools(List<ToolDto> tools) {
-        toolRepository.saveAllAndFlush(createToolsEntity(tools));
+        upsertTools(tools);
         return "Saved";
     }
+
+    /**
+     * Inserts new tools and updates changed ones with set-based statements instead of a
+     * SELECT per tool, then publishes them to the tool catalog.
+     * @param tools List of Data Transfer Objects containing the details of the tools to be upserted.
+     * @return How many tools were inserted, updated and left unchanged.
+     */
+    @Transactional
+    @Override
+    public ToolImportResultDto upsertTools(List<ToolDto> tools) {
+        List<Tool> toolEntities = createToolsEntity(tools);
+        ToolImportResultDto result = new ToolImportResultDto();
+        addCounts(result, toolRepository.upsertAll(toolEntities));
+        toolCatalog.publish(toolEntities);
+        result.setProcessResult(ProcessResult.builder().status("Ok").message("Upsert Successful").build());
+        return result;
+    }
+
+    /**
+     * Imports a tool feed (NDJSON or a JSON array) while it is being read.
+     * Tools are upserted in chunks of IMPORT_CHUNK_SIZE, each in its own transaction,
+     * so memory use does not grow with the feed.
+     * Lines that cannot be read or fail validation are reported and skipped; chunks saved before
+     * a fatal read error stay saved. Each chunk's tools are published to the tool catalog when its
+     * transaction commits, so the catalog is never rebuilt from the whole tool table.
+     *
+     * @param feed The tool feed.
+     * @return The number of inserted, updated, unchanged and rejected tools and the first rejections.
+     */
+    @Override
+    public ToolImportResultDto importTools(InputStream feed) {
+        ToolImportResultDto result = new ToolImportResultDto();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Tool> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        try {
+            new ToolFeedReader(objectMapper).read(feed, new ToolFeedReader.Listener() {
+                @Override
+                public void onTool(long lineNumber, ToolDto tool) {
+                    String error = validateTool(tool);
+                    if (error != null) {
+                        result.addError(lineNumber, error);
+                        return;
+                    }
+                    chunk.add(createToolEntity(tool));
+                    if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                        saveImportChunk(transactionTemplate, chunk, result);
+                    }
+                }
+
+                @Override
+                public void onError(long lineNumber, String message) {
+                    result.addError(lineNumber, message);
+                }
+            });
+            saveImportChunk(transactionTemplate, chunk, result);
+            result.setProcessResult(ProcessResult.builder().status("Ok").message("Import Successful").build());
+        } catch (IOException | RuntimeException ex) {
+            log.error("tool import stopped after {} tools {} ", result.getImported(), ex.getMessage());
+            result.setProcessResult(ProcessResult.builder().status("Error").message("Import stopped: " + ex.getMessage()).build());
+        }
+        return result;
+    }
+
+    /**
+     * Upserts one chunk of an import in its own transaction and publishes it to the tool catalog after the commit.
+     */
+    private void saveImportChunk(TransactionTemplate transactionTemplate, List<Tool> chunk, ToolImportResultDto result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        addCounts(result, transactionTemplate.execute(status -> {
+            UpsertCounts counts = toolRepository.upsertAll(chunk);
+            toolCatalog.publish(chunk);
+            return counts;
+        }));
+        chunk.clear();
+        log.info("tool import: {} tools saved, {} rejected", result.getImported(), result.getFailed());
+    }
+
+    private void addCounts(ToolImportResultDto result, UpsertCounts counts) {
+        result.setInserted(result.getInserted() + counts.inserted());
+        result.setUpdated(result.getUpdated() + counts.updated());
+        result.setUnchanged(result.getUnchanged() + counts.unchanged());
+        result.setImported(result.getImported() + counts.inserted() + counts.updated() + counts.unchanged());
+    }
+
+    /**
+     * Checks the fields a tool needs to be priced.
+     *
+     * @param tool The tool to check.
+     * @return The reason the tool is invalid, or null if it is valid.
+     */
+    private String validateTool(ToolDto tool) {
+        if (tool.getToolCode() == null || tool.getToolCode().isBlank()) {
+            return "toolCode is required";
+        }
+        if (tool.getToolType() == null || tool.getToolType().isBlank()) {
+            return "toolType is required";
+        }
+        if (tool.getDailyCharge() < 0) {
+            return "dailyCharge should be 0 or more";
+        }
+        if (tool.getUnits() != null && tool.getUnits() < 0) {
+            return "units should be 0 or more";
+        }
+        return null;
+    }
+
     /**
      * Converts a list of ToolDto objects to a list of Tool entities.
      * This method maps each ToolDto to a Tool entity by copying the relevant properties.
      * @param toolDtos List of Data Transfer Objects containing the tool details.
      * @return A list of Tool entities created from the provided ToolDto objects.
      */
-    private Iterable<Tool> createToolsEntity(List<ToolDto> toolDtos) {
+    private List<Tool> createToolsEntity(List<ToolDto> toolDtos) {
         List<Tool> tools = new ArrayList<>();
         for (ToolDto toolDto : toolDtos) {
             Tool toolEntity = new Tool();
@@ -62,6 +194,7 @@ public class ToolSrviceImpl implements ToolService {
             toolEntity.setWeekdayCharge(toolDto.getWeekdayCharge());
             toolEntity.setHolidayCharge(toolDto.getHolidayCharge());
             toolEntity.setWeekendCharge(toolDto.getWeekendCharge());
+            toolEntity.setUnits(toolDto.getUnits());
             tools.add(toolEntity);
         }
         return tools;
@@ -81,6 +214,7 @@ public class ToolSrviceImpl implements ToolService {
                 .dailyCharge(tool.getDailyCharge())
                 .weekdayCharge(tool.getWeekdayCharge())
                 .weekendCharge(tool.getWeekendCharge())
+                .units(tool.getUnits())
                 .build();
     }
 }
@@ -0,0 +1,154 @@
+package com.tools.point.of.sale.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that adapts to observed latency (additive increase, multiplicative decrease).
+ * The limiter tracks the no-load latency as a slowly rising minimum of the request latencies.
+ * While requests finish within latencyTolerance times that latency and the limit is being used,
+ * the limit grows by about one per limit requests. When a request takes longer, the limit is cut
+ * by backoffRatio, at most once per such latency, because requests were already queueing
+ * downstream (e.g. on the connection pool). Requests over the limit are rejected at once
+ * instead of waiting.
+ *
+ * @author melessweldemichael
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** How fast the no-load latency drifts up towards higher latencies, per request. */
+    private static final double NO_LOAD_DRIFT = 0.001;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+    private volatile long noLoadLatencyNanos;
+    private volatile long lastLatencyNanos;
+    private long lastDecreaseNanos;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param name The name reported in its state.
+     * @param initialLimit The limit to start with.
+     * @param minLimit The limit is never cut below this.
+     * @param maxLimit The limit never grows above this.
+     * @param latencyTolerance How many times the no-load latency a request may take before the limit is cut.
+     * @param backoffRatio The factor the limit is multiplied by when it is cut.
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double latencyTolerance, double backoffRatio) {
+        this(name, initialLimit, minLimit, maxLimit, latencyTolerance, backoffRatio, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                               double latencyTolerance, double backoffRatio, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits should satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (latencyTolerance < 1 || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("latencyTolerance should be 1 or more and backoffRatio between 0 and 1");
+        }
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.nanoClock = nanoClock;
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Admits a request if fewer requests than the current limit are in flight.
+     *
+     * @return The permit of the request, to be completed when it finishes, or null when the limit is reached.
+     */
+    public Permit tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return null;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        accepted.increment();
+        return new Permit(current + 1, nanoClock.getAsLong());
+    }
+
+    /**
+     * @return The limit never grows above this.
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * @return The current limit, requests in flight, latencies and admission counts.
+     */
+    public State getState() {
+        return new State(name, (int) limit, inFlight.get(), noLoadLatencyNanos / 1_000_000.0,
+                lastLatencyNanos / 1_000_000.0, accepted.sum(), rejected.sum());
+    }
+
+    private synchronized void onSample(int inFlightAtStart, long startNanos, long latencyNanos) {
+        lastLatencyNanos = latencyNanos;
+        if (noLoadLatencyNanos == 0 || latencyNanos < noLoadLatencyNanos) {
+            noLoadLatencyNanos = latencyNanos;
+        } else {
+            // let the baseline follow a lasting latency increase (e.g. bigger data) instead of cutting forever
+            noLoadLatencyNanos += (long) ((latencyNanos - noLoadLatencyNanos) * NO_LOAD_DRIFT);
+        }
+        if (latencyNanos > noLoadLatencyNanos * latencyTolerance) {
+            // requests that started before the last cut do not show its effect yet
+            if (startNanos - lastDecreaseNanos >= 0) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = nanoClock.getAsLong();
+            }
+        } else if (inFlightAtStart * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * An admitted request.
+     */
+    public final class Permit {
+        private final int inFlightAtStart;
+        private final long startNanos;
+        private boolean completed;
+
+        private Permit(int inFlightAtStart, long startNanos) {
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Frees the slot of the request and feeds its latency into the limit. Only the first call counts.
+         */
+        public void complete() {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            inFlight.decrementAndGet();
+            onSample(inFlightAtStart, startNanos, nanoClock.getAsLong() - startNanos);
+        }
+    }
+
+    /**
+     * A snapshot of a limiter.
+     */
+    public record State(String name, int limit, int inFlight, double noLoadLatencyMillis, double lastLatencyMillis,
+                        long accepted, long rejected) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.tools.point.of.sale.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free, append-only log. Appending claims the next index with a single atomic add and writes
+ * the value into a fixed-size segment; segments are created on first use with a compare-and-set, so
+ * appenders never lock and never copy. appendAll claims a whole block of indexes with one atomic add,
+ * which keeps the shared counter cold when many threads append in chunks.
+ * An entry is visible to readers once its append has returned; entries still being written are
+ * skipped by snapshot and read as null by get.
+ *
+ * @author melessweldemichael
+ */
+public class AppendOnlyLog<T> {
+
+    private static final int SEGMENT_BITS = 14;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int MAX_SEGMENTS = 1 << 15;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+
+    /**
+     * Appends a value.
+     *
+     * @param value The value; must not be null.
+     * @return The index of the value.
+     */
+    public long append(T value) {
+        requireNonNull(value);
+        long index = claim(1);
+        store(index, value);
+        return index;
+    }
+
+    /**
+     * Appends values as one contiguous block.
+     *
+     * @param values The values; none may be null.
+     * @return The index of the first value.
+     */
+    public long appendAll(List<? extends T> values) {
+        values.forEach(AppendOnlyLog::requireNonNull);
+        long first = claim(values.size());
+        long index = first;
+        for (T value : values) {
+            store(index++, value);
+        }
+        return first;
+    }
+
+    /**
+     * @param index The index of an entry.
+     * @return The entry, or null if it is still being written.
+     */
+    public T get(long index) {
+        if (index < 0 || index >= claimed.get()) {
+            throw new IndexOutOfBoundsException("index " + index + " is not in the log");
+        }
+        AtomicReferenceArray<T> segment = segments.get((int) (index >>> SEGMENT_BITS));
+        return segment == null ? null : segment.get((int) (index & (SEGMENT_SIZE - 1)));
+    }
+
+    /**
+     * @return The number of entries appended or being appended.
+     */
+    public long size() {
+        return claimed.get();
+    }
+
+    /**
+     * @return The entries written so far, in index order.
+     */
+    public List<T> snapshot() {
+        long size = claimed.get();
+        List<T> entries = new ArrayList<>((int) Math.min(size, Integer.MAX_VALUE));
+        for (long index = 0; index < size; index++) {
+            T value = get(index);
+            if (value != null) {
+                entries.add(value);
+            }
+        }
+        return entries;
+    }
+
+    private long claim(int count) {
+        long first = claimed.getAndAdd(count);
+        if (first + count > (long) MAX_SEGMENTS * SEGMENT_SIZE) {
+            throw new IllegalStateException("append-only log is full");
+        }
+        return first;
+    }
+
+    private static void requireNonNull(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("log entries must not be null");
+        }
+    }
+
+    private void store(long index, T value) {
+        int segmentIndex = (int) (index >>> SEGMENT_BITS);
+        AtomicReferenceArray<T> segment = segments.get(segmentIndex);
+        if (segment == null) {
+            segments.compareAndSet(segmentIndex, null, new AtomicReferenceArray<>(SEGMENT_SIZE));
+            segment = segments.get(segmentIndex);
+        }
+        segment.set((int) (index & (SEGMENT_SIZE - 1)), value);
+    }
+}
@@ -0,0 +1,115 @@
+package com.tools.point.of.sale.util;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded execution lane: at most maxConcurrent callers run at once, at most maxWaiting more wait
+ * (in arrival order) for up to maxWait, and anyone beyond that is turned away at once. Giving each kind
+ * of work its own bulkhead caps the worker threads and database connections it can hold, so a flood
+ * of one kind cannot starve the others.
+ *
+ * @author melessweldemichael
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * Creates a bulkhead.
+     *
+     * @param name The name of the lane.
+     * @param maxConcurrent How many callers may run at once.
+     * @param maxWaiting How many more callers may wait for a slot.
+     * @param maxWait How long a caller waits for a slot.
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxWaiting, Duration maxWait) {
+        if (maxConcurrent < 1 || maxWaiting < 0) {
+            throw new IllegalArgumentException("maxConcurrent should be 1 or more and maxWaiting 0 or more");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Takes a slot in the lane, waiting for one if the lane is full and the wait queue is not.
+     * A caller that gets a slot must call exit when it is done.
+     *
+     * @return True when a slot was taken, false when the wait queue is full or the wait timed out.
+     * @throws InterruptedException If the caller is interrupted while waiting.
+     */
+    public boolean tryEnter() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            accepted.increment();
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                accepted.increment();
+                return true;
+            }
+            timedOut.increment();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gives back the slot taken by tryEnter.
+     */
+    public void exit() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxWaiting() {
+        return maxWaiting;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+}
@@ -0,0 +1,196 @@
+package com.tools.point.of.sale.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Precomputed calendar used to answer chargeable-day questions for any date range.
+ * For every indexed year it keeps one bitset per day class (weekday, weekend, weekday
+ * holiday, weekend holiday) together with prefix-sum arrays, so counting the days of a
+ * class inside a range that stays within one year is two array reads and a subtraction.
+ *
+ * Day classes are disjoint: a holiday is only counted as a holiday of its day of week,
+ * never as a plain weekday or weekend day. The index starts with the current year and
+ * its neighbours and grows lazily when a range falls into a year that has not been built yet.
+ *
+ * @author melessweldemichael
+ */
+public class ChargeCalendarIndex {
+
+    private final HolidayCalendar holidayCalendar;
+    private final ConcurrentMap<Integer, YearIndex> years = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the index and builds the years most checkouts fall into.
+     *
+     * @param holidayCalendar The calendar providing the holidays of each year.
+     */
+    public ChargeCalendarIndex(HolidayCalendar holidayCalendar) {
+        this.holidayCalendar = holidayCalendar;
+        int currentYear = LocalDate.now().getYear();
+        for (int year = currentYear - 1; year <= currentYear + 1; year++) {
+            yearIndex(year);
+        }
+    }
+
+    /**
+     * Returns the calendar the holidays of this index come from.
+     *
+     * @return The holiday calendar.
+     */
+    public HolidayCalendar getHolidayCalendar() {
+        return holidayCalendar;
+    }
+
+    /**
+     * Counts the weekdays that are not holidays in the inclusive range [from, to].
+     *
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @return The number of non-holiday weekdays in the range.
+     */
+    public int countWeekdays(LocalDate from, LocalDate to) {
+        return count(from, to, YearIndex.WEEKDAY);
+    }
+
+    /**
+     * Counts the weekend days that are not holidays in the inclusive range [from, to].
+     *
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @return The number of non-holiday weekend days in the range.
+     */
+    public int countWeekendDays(LocalDate from, LocalDate to) {
+        return count(from, to, YearIndex.WEEKEND);
+    }
+
+    /**
+     * Counts the holidays in the inclusive range [from, to].
+     *
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @return The number of holidays in the range.
+     */
+    public int countHolidays(LocalDate from, LocalDate to) {
+        return count(from, to, YearIndex.WEEKDAY_HOLIDAY) + count(from, to, YearIndex.WEEKEND_HOLIDAY);
+    }
+
+    /**
+     * Counts the days in the inclusive range [from, to] whose class is charged by the given mask.
+     * A holiday is charged only when both its day of week and holidays are charged, so a tool
+     * that is not charged on weekends is never charged for a holiday falling on a weekend.
+     *
+     * @param from The first day of the range.
+     * @param to The last day of the range.
+     * @param chargeMask The compiled {@link ChargeMask} of the tool.
+     * @return The number of chargeable days in the range.
+     */
+    public int countChargeDays(LocalDate from, LocalDate to, int chargeMask) {
+        int chargeDays = 0;
+        boolean holidays = (chargeMask & ChargeMask.HOLIDAY) != 0;
+        if ((chargeMask & ChargeMask.WEEKDAY) != 0) {
+            chargeDays += countWeekdays(from, to);
+            if (holidays) {
+                chargeDays += count(from, to, YearIndex.WEEKDAY_HOLIDAY);
+            }
+        }
+        if ((chargeMask & ChargeMask.WEEKEND) != 0) {
+            chargeDays += countWeekendDays(from, to);
+            if (holidays) {
+                chargeDays += count(from, to, YearIndex.WEEKEND_HOLIDAY);
+            }
+        }
+        return chargeDays;
+    }
+
+    /**
+     * Checks whether the given date is a holiday.
+     *
+     * @param date The date to check.
+     * @return True if the date is a holiday, otherwise false.
+     */
+    public boolean isHoliday(LocalDate date) {
+        YearIndex index = yearIndex(date.getYear());
+        int day = date.getDayOfYear() - 1;
+        return index.test(YearIndex.WEEKDAY_HOLIDAY, day) || index.test(YearIndex.WEEKEND_HOLIDAY, day);
+    }
+
+    private int count(LocalDate from, LocalDate to, int dayClass) {
+        if (to.isBefore(from)) {
+            return 0;
+        }
+        int fromYear = from.getYear();
+        int toYear = to.getYear();
+        if (fromYear == toYear) {
+            return yearIndex(fromYear).count(dayClass, from.getDayOfYear() - 1, to.getDayOfYear());
+        }
+        YearIndex first = yearIndex(fromYear);
+        int total = first.count(dayClass, from.getDayOfYear() - 1, first.length);
+        for (int year = fromYear + 1; year < toYear; year++) {
+            YearIndex middle = yearIndex(year);
+            total += middle.count(dayClass, 0, middle.length);
+        }
+        return total + yearIndex(toYear).count(dayClass, 0, to.getDayOfYear());
+    }
+
+    private YearIndex yearIndex(int year) {
+        YearIndex index = years.get(year);
+        return index != null ? index : years.computeIfAbsent(year, key -> new YearIndex(key, holidayCalendar));
+    }
+
+    /**
+     * Bitsets and prefix sums for a single year, indexed by zero-based day of year.
+     */
+    private static final class YearIndex {
+        static final int WEEKDAY = 0;
+        static final int WEEKEND = 1;
+        static final int WEEKDAY_HOLIDAY = 2;
+        static final int WEEKEND_HOLIDAY = 3;
+
+        final int length;
+        final long[][] bits = new long[4][];
+        final int[][] prefix = new int[4][];
+
+        YearIndex(int year, HolidayCalendar holidayCalendar) {
+            length = Year.of(year).length();
+            for (int dayClass = WEEKDAY; dayClass <= WEEKEND_HOLIDAY; dayClass++) {
+                bits[dayClass] = new long[(length + 63) >>> 6];
+                prefix[dayClass] = new int[length + 1];
+            }
+            for (LocalDate holiday : holidayCalendar.holidaysOf(year)) {
+                set(isWeekend(holiday.getDayOfWeek().getValue()) ? WEEKEND_HOLIDAY : WEEKDAY_HOLIDAY, holiday.getDayOfYear() - 1);
+            }
+
+            int dayOfWeek = LocalDate.ofYearDay(year, 1).getDayOfWeek().getValue();
+            for (int day = 0; day < length; day++) {
+                if (!test(WEEKDAY_HOLIDAY, day) && !test(WEEKEND_HOLIDAY, day)) {
+                    set(isWeekend(dayOfWeek) ? WEEKEND : WEEKDAY, day);
+                }
+                for (int dayClass = WEEKDAY; dayClass <= WEEKEND_HOLIDAY; dayClass++) {
+                    prefix[dayClass][day + 1] = prefix[dayClass][day] + (test(dayClass, day) ? 1 : 0);
+                }
+                dayOfWeek = dayOfWeek == DayOfWeek.SUNDAY.getValue() ? DayOfWeek.MONDAY.getValue() : dayOfWeek + 1;
+            }
+        }
+
+        /** Counts the days of a class in the half-open day-of-year range [fromDay, toDay). */
+        int count(int dayClass, int fromDay, int toDay) {
+            return prefix[dayClass][toDay] - prefix[dayClass][fromDay];
+        }
+
+        private static boolean isWeekend(int dayOfWeek) {
+            return dayOfWeek >= DayOfWeek.SATURDAY.getValue();
+        }
+
+        boolean test(int dayClass, int day) {
+            return (bits[dayClass][day >>> 6] & (1L << day)) != 0;
+        }
+
+        private void set(int dayClass, int day) {
+            bits[dayClass][day >>> 6] |= 1L << day;
+        }
+    }
+}
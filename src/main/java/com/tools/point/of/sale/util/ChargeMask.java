@@ -0,0 +1,44 @@
+package com.tools.point.of.sale.util;
+
+/**
+ * Compiles the weekday/weekend/holiday charge flags of a tool ("Yes"/"No") into a bit mask.
+ * The mask is evaluated against the {@link ChargeCalendarIndex} day classes, so any tool type
+ * is priced from its own flags instead of from its name.
+ *
+ * @author melessweldemichael
+ */
+public final class ChargeMask {
+
+    public static final int WEEKDAY = 1;
+    public static final int WEEKEND = 1 << 1;
+    public static final int HOLIDAY = 1 << 2;
+
+    private ChargeMask() {
+    }
+
+    /**
+     * Builds the charge mask for the given flags.
+     *
+     * @param weekdayCharge Whether weekdays are charged ("Yes"/"No").
+     * @param weekendCharge Whether weekend days are charged ("Yes"/"No").
+     * @param holidayCharge Whether holidays are charged ("Yes"/"No").
+     * @return The compiled charge mask.
+     */
+    public static int compile(String weekdayCharge, String weekendCharge, String holidayCharge) {
+        int mask = 0;
+        if (isCharged(weekdayCharge)) {
+            mask |= WEEKDAY;
+        }
+        if (isCharged(weekendCharge)) {
+            mask |= WEEKEND;
+        }
+        if (isCharged(holidayCharge)) {
+            mask |= HOLIDAY;
+        }
+        return mask;
+    }
+
+    private static boolean isCharged(String flag) {
+        return flag != null && ("Yes".equalsIgnoreCase(flag.trim()) || "true".equalsIgnoreCase(flag.trim()));
+    }
+}
@@ -5,21 +5,32 @@ import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 
 import java.io.IOException;
-import java.text.NumberFormat;
-import java.util.Locale;
 
 /**
- * Custom serializer for converting Float values into currency format for JSON output.
- * This serializer formats the float value as a currency string according to the US locale.
+ * Custom serializer for converting amounts held in cents into currency format for JSON output.
+ * This serializer formats the amount as a currency string according to the US locale, e.g. $1,234.56.
+ * The characters are written from a per-thread buffer straight into the generator, so no String is created.
  *
  * @author melessweldemichael
  */
-public class CurrencySerializer extends JsonSerializer<Float> {
+public class CurrencySerializer extends JsonSerializer<Long> {
+
+    private static final ThreadLocal<char[]> buffer = ThreadLocal.withInitial(() -> new char[32]);
 
     @Override
-    public void serialize(Float value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
-        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.US);
-        String formattedCurrency = currencyFormat.format(value);
-        gen.writeString(formattedCurrency);
+    public void serialize(Long value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        writeCurrency(value, gen);
+    }
+
+    /**
+     * Writes an amount in cents as a currency string value.
+     *
+     * @param cents The amount in cents.
+     * @param gen The generator to write to.
+     * @throws IOException if the generator fails to write.
+     */
+    public static void writeCurrency(long cents, JsonGenerator gen) throws IOException {
+        char[] chars = buffer.get();
+        gen.writeString(chars, 0, Money.format(cents, chars));
     }
 }
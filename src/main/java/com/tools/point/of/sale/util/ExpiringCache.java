@@ -0,0 +1,175 @@
+package com.tools.point.of.sale.util;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, time-expiring memoizing cache.
+ * Concurrent misses for the same key are coalesced: the first caller computes the value
+ * and the others wait for its result. Entries expire a fixed time after they were computed,
+ * and once more than maxSize entries were added the oldest ones are evicted first. Entries whose
+ * value is still being computed are never evicted, so the cache may briefly hold more than maxSize
+ * entries while that many values are in flight.
+ * Null results and failures are handed to the waiting callers but are not kept.
+ *
+ * @author melessweldemichael
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final ConcurrentMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize The maximum number of entries kept.
+     * @param timeToLive How long a computed value is kept.
+     */
+    public ExpiringCache(int maxSize, Duration timeToLive) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize should be 1 or more");
+        }
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    /**
+     * Returns the cached value for the key, computing it with the loader on a miss.
+     * If another thread is already computing the value for the key, waits for its result.
+     *
+     * @param key The cache key.
+     * @param loader Computes the value on a miss.
+     * @return The cached or computed value.
+     */
+    public V get(K key, Supplier<V> loader) {
+        while (true) {
+            Entry<K, V> entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(System.nanoTime())) {
+                    return entry.await();
+                }
+                entries.remove(key, entry);
+            }
+            Entry<K, V> created = new Entry<>(key);
+            if (entries.putIfAbsent(key, created) != null) {
+                continue;
+            }
+            insertionOrder.add(created);
+            if (queued.incrementAndGet() > maxSize) {
+                evictOldest();
+            }
+            return load(created, loader);
+        }
+    }
+
+    /**
+     * Returns the cached value for the key without computing it on a miss.
+     * If another thread is computing the value, waits for its result.
+     *
+     * @param key The cache key.
+     * @return The cached value, or null if there is none.
+     */
+    public V getIfPresent(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null || entry.isExpired(System.nanoTime())) {
+            return null;
+        }
+        return entry.await();
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Removes the entries whose key matches, including values still being computed;
+     * their callers still get the computed value, but it is not kept.
+     *
+     * @param keyFilter Selects the keys to remove.
+     */
+    public void invalidateIf(Predicate<K> keyFilter) {
+        entries.values().removeIf(entry -> keyFilter.test(entry.key));
+    }
+
+    /**
+     * @return The number of entries currently held, including values still being computed.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private V load(Entry<K, V> entry, Supplier<V> loader) {
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error ex) {
+            entries.remove(entry.key, entry);
+            entry.value.completeExceptionally(ex);
+            throw ex;
+        }
+        if (value == null) {
+            entries.remove(entry.key, entry);
+        } else {
+            entry.expiresAt = System.nanoTime() + timeToLiveNanos;
+        }
+        entry.value.complete(value);
+        return value;
+    }
+
+    private void evictOldest() {
+        int inFlight = 0;
+        while (queued.get() > maxSize && inFlight < queued.get()) {
+            Entry<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            // evicting a value still being computed would let the next caller compute it a second time
+            if (!oldest.value.isDone() && entries.get(oldest.key) == oldest) {
+                insertionOrder.add(oldest);
+                inFlight++;
+                continue;
+            }
+            queued.decrementAndGet();
+            entries.remove(oldest.key, oldest);
+        }
+    }
+
+    private static final class Entry<K, V> {
+        final K key;
+        final CompletableFuture<V> value = new CompletableFuture<>();
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(K key) {
+            this.key = key;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+
+        V await() {
+            try {
+                return value.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.tools.point.of.sale.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A set of {@link HolidayRule}s with a per-year cache of the resulting holiday dates.
+ * The rules of a year are evaluated once; afterwards lookups are a lock-free map read
+ * followed by a scan of a tiny sorted array.
+ *
+ * @author melessweldemichael
+ */
+public class HolidayCalendar {
+
+    private final List<HolidayRule> rules;
+    private final ConcurrentMap<Integer, LocalDate[]> holidaysByYear = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a calendar from the given rules.
+     *
+     * @param rules The rules producing the holidays of a year.
+     */
+    public HolidayCalendar(List<HolidayRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    /**
+     * The default calendar: observed Independence Day and Labor Day.
+     *
+     * @return The default holiday calendar.
+     */
+    public static HolidayCalendar unitedStates() {
+        return new HolidayCalendar(List.of(
+                HolidayRule.observed(HolidayRule.fixed(Month.JULY, 4)),
+                HolidayRule.nthWeekday(1, DayOfWeek.MONDAY, Month.SEPTEMBER)));
+    }
+
+    /**
+     * Builds a calendar from comma separated rule texts, e.g.
+     * "observed:fixed:JULY:4, nth:1:MONDAY:SEPTEMBER".
+     *
+     * @param specs The comma separated rules, see {@link HolidayRule#parse(String)}.
+     * @return The holiday calendar.
+     */
+    public static HolidayCalendar parse(String specs) {
+        List<HolidayRule> rules = new ArrayList<>();
+        for (String spec : specs.split(",")) {
+            if (!spec.isBlank()) {
+                rules.add(HolidayRule.parse(spec));
+            }
+        }
+        return new HolidayCalendar(rules);
+    }
+
+    /**
+     * Returns the holidays falling in the given year, sorted by date.
+     * Observed dates may move into a neighbouring year (e.g. a Saturday January 1st
+     * is observed on December 31st), so neighbouring years' rules are evaluated as well.
+     *
+     * @param year The year to look up.
+     * @return The sorted holidays of the year; the array must not be modified.
+     */
+    public LocalDate[] holidaysOf(int year) {
+        LocalDate[] holidays = holidaysByYear.get(year);
+        return holidays != null ? holidays : holidaysByYear.computeIfAbsent(year, this::evaluate);
+    }
+
+    /**
+     * Checks whether the given date is a holiday.
+     *
+     * @param date The date to check.
+     * @return True if the date is a holiday, otherwise false.
+     */
+    public boolean isHoliday(LocalDate date) {
+        for (LocalDate holiday : holidaysOf(date.getYear())) {
+            if (holiday.equals(date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LocalDate[] evaluate(int year) {
+        List<LocalDate> holidays = new ArrayList<>();
+        for (int ruleYear = year - 1; ruleYear <= year + 1; ruleYear++) {
+            for (HolidayRule rule : rules) {
+                LocalDate date = rule.dateIn(ruleYear);
+                if (date.getYear() == year && !holidays.contains(date)) {
+                    holidays.add(date);
+                }
+            }
+        }
+        LocalDate[] sorted = holidays.toArray(new LocalDate[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,130 @@
+package com.tools.point.of.sale.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * A rule producing the date of one holiday for a given year.
+ * Rules are combined into a {@link HolidayCalendar}.
+ *
+ * Rules can also be written as text, which is how regional calendars are configured:
+ * - fixed:JULY:4 - a fixed day of a month
+ * - nth:1:MONDAY:SEPTEMBER - the nth weekday of a month
+ * - last:MONDAY:MAY - the last weekday of a month
+ * - observed:&lt;rule&gt; - moves a Saturday holiday to Friday and a Sunday holiday to Monday
+ *
+ * @author melessweldemichael
+ */
+@FunctionalInterface
+public interface HolidayRule {
+
+    /**
+     * Calculates the date of the holiday.
+     *
+     * @param year The year to calculate for.
+     * @return The holiday date.
+     */
+    LocalDate dateIn(int year);
+
+    /**
+     * A holiday on a fixed day of a month, e.g. July 4th.
+     *
+     * @param month The month of the holiday.
+     * @param dayOfMonth The day of the month; it has to exist in every year, so February 29th is rejected.
+     * @return The rule.
+     * @throws IllegalArgumentException if the day does not exist in the month every year.
+     */
+    static HolidayRule fixed(Month month, int dayOfMonth) {
+        if (dayOfMonth < 1 || dayOfMonth > month.minLength()) {
+            throw new IllegalArgumentException("day of month should be between 1 and " + month.minLength() + " for " + month);
+        }
+        return year -> LocalDate.of(year, month, dayOfMonth);
+    }
+
+    /**
+     * A holiday on the nth weekday of a month, e.g. the first Monday of September.
+     *
+     * @param ordinal The occurrence of the weekday in the month, from 1 to 4; a fifth weekday does not exist
+     *                every year, use {@link #lastWeekday(DayOfWeek, Month)} instead.
+     * @param dayOfWeek The weekday of the holiday.
+     * @param month The month of the holiday.
+     * @return The rule.
+     * @throws IllegalArgumentException if the ordinal is not between 1 and 4.
+     */
+    static HolidayRule nthWeekday(int ordinal, DayOfWeek dayOfWeek, Month month) {
+        if (ordinal < 1 || ordinal > 4) {
+            throw new IllegalArgumentException("ordinal should be between 1 and 4, use last: for the last weekday");
+        }
+        return year -> LocalDate.of(year, month, 1).with(TemporalAdjusters.dayOfWeekInMonth(ordinal, dayOfWeek));
+    }
+
+    /**
+     * A holiday on the last weekday of a month, e.g. the last Monday of May.
+     *
+     * @param dayOfWeek The weekday of the holiday.
+     * @param month The month of the holiday.
+     * @return The rule.
+     */
+    static HolidayRule lastWeekday(DayOfWeek dayOfWeek, Month month) {
+        return year -> LocalDate.of(year, month, 1).with(TemporalAdjusters.lastInMonth(dayOfWeek));
+    }
+
+    /**
+     * Observes a holiday on the nearest weekday when it falls on a weekend:
+     * Saturday moves to the Friday before and Sunday to the Monday after.
+     *
+     * @param rule The rule producing the actual holiday date.
+     * @return The rule producing the observed date.
+     */
+    static HolidayRule observed(HolidayRule rule) {
+        return year -> {
+            LocalDate date = rule.dateIn(year);
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY) {
+                return date.minusDays(1);
+            } else if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                return date.plusDays(1);
+            }
+            return date;
+        };
+    }
+
+    /**
+     * Parses a rule from its text form, see the class documentation for the syntax.
+     *
+     * @param spec The rule text.
+     * @return The parsed rule.
+     * @throws IllegalArgumentException if the text is not a valid rule.
+     */
+    static HolidayRule parse(String spec) {
+        String[] parts = spec.trim().toUpperCase(Locale.ROOT).split(":");
+        try {
+            switch (parts[0]) {
+                case "OBSERVED":
+                    return observed(parse(spec.trim().substring(spec.trim().indexOf(':') + 1)));
+                case "FIXED":
+                    if (parts.length == 3) {
+                        return fixed(Month.valueOf(parts[1]), Integer.parseInt(parts[2]));
+                    }
+                    break;
+                case "NTH":
+                    if (parts.length == 4) {
+                        return nthWeekday(Integer.parseInt(parts[1]), DayOfWeek.valueOf(parts[2]), Month.valueOf(parts[3]));
+                    }
+                    break;
+                case "LAST":
+                    if (parts.length == 3) {
+                        return lastWeekday(DayOfWeek.valueOf(parts[1]), Month.valueOf(parts[2]));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid holiday rule: " + spec, ex);
+        }
+        throw new IllegalArgumentException("Invalid holiday rule: " + spec);
+    }
+}
@@ -0,0 +1,104 @@
+package com.tools.point.of.sale.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on amounts held as a long number of cents.
+ * All pricing is done on cents with explicit HALF_UP rounding, so the results are exact
+ * and no objects are created while pricing a checkout.
+ *
+ * @author melessweldemichael
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Converts a dollar amount (e.g. a tool's daily charge) to cents, rounding HALF_UP
+     * on the decimal value the float was written as.
+     *
+     * @param dollars The dollar amount.
+     * @return The amount in cents.
+     */
+    public static long toCents(float dollars) {
+        return new BigDecimal(Float.toString(dollars)).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Multiplies an amount by a quantity, e.g. a daily charge by the number of charge days.
+     *
+     * @param cents The amount in cents.
+     * @param quantity The quantity.
+     * @return The product in cents.
+     */
+    public static long multiply(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * Calculates a percentage of an amount, rounded HALF_UP to whole cents.
+     *
+     * @param cents The amount in cents.
+     * @param percent The percentage.
+     * @return The percentage of the amount in cents.
+     */
+    public static long percentOf(long cents, int percent) {
+        long hundredths = Math.multiplyExact(cents, percent);
+        return hundredths >= 0 ? (hundredths + 50) / 100 : -((-hundredths + 50) / 100);
+    }
+
+    /**
+     * Formats an amount in US currency format, e.g. $1,234.56 or -$0.50.
+     *
+     * @param cents The amount in cents.
+     * @return The formatted amount.
+     */
+    public static String format(long cents) {
+        char[] chars = new char[32];
+        int length = format(cents, chars);
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Writes an amount in US currency format into the given buffer.
+     *
+     * @param cents The amount in cents.
+     * @param chars The buffer to write to; 32 characters are always enough.
+     * @return The number of characters written.
+     */
+    public static int format(long cents, char[] chars) {
+        int position = 0;
+        if (cents < 0) {
+            chars[position++] = '-';
+        }
+        chars[position++] = '$';
+        // work on the negated amount so Long.MIN_VALUE does not overflow
+        long negative = cents < 0 ? cents : -cents;
+        long dollars = -(negative / 100);
+        int remainder = (int) -(negative % 100);
+
+        int digits = 1;
+        for (long value = dollars; value >= 10; value /= 10) {
+            digits++;
+        }
+        int end = position + digits + (digits - 1) / 3;
+        int index = end - 1;
+        int written = 0;
+        long value = dollars;
+        do {
+            if (written > 0 && written % 3 == 0) {
+                chars[index--] = ',';
+            }
+            chars[index--] = (char) ('0' + value % 10);
+            value /= 10;
+            written++;
+        } while (value > 0);
+        position = end;
+        chars[position++] = '.';
+        chars[position++] = (char) ('0' + remainder / 10);
+        chars[position++] = (char) ('0' + remainder % 10);
+        return position;
+    }
+}
@@ -0,0 +1,83 @@
+package com.tools.point.of.sale.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+
+import java.io.IOException;
+
+/**
+ * Hand-written serializer for RentalAgreementDto, replacing reflective bean serialization.
+ * It writes the same JSON as the annotated bean did: properties in declaration order,
+ * null and zero values left out (the NON_DEFAULT inclusion of the DTO) and amounts
+ * formatted as US currency strings straight from cents.
+ *
+ * @author melessweldemichael
+ */
+public class RentalAgreementDtoSerializer extends StdSerializer<RentalAgreementDto> {
+
+    private static final SerializableString TOOL_CODE = new SerializedString("toolCode");
+    private static final SerializableString TOOL_TYPE = new SerializedString("toolType");
+    private static final SerializableString TOOL_BRAND = new SerializedString("toolBrand");
+    private static final SerializableString RENTAL_DAYS = new SerializedString("rentalDays");
+    private static final SerializableString CHECK_OUT_DATE = new SerializedString("checkOutDate");
+    private static final SerializableString DUE_DATE = new SerializedString("dueDate");
+    private static final SerializableString DAILY_RENTAL_CHARGE = new SerializedString("dailyRentalCharge");
+    private static final SerializableString CHARGE_DAYS = new SerializedString("chargeDays");
+    private static final SerializableString PRE_DISCOUNT_CHARGE = new SerializedString("preDiscountCharge");
+    private static final SerializableString DISCOUNT_PERCENT = new SerializedString("discountPercent");
+    private static final SerializableString DISCOUNT_AMOUNT = new SerializedString("discountAmount");
+    private static final SerializableString FINAL_CHARGE = new SerializedString("finalCharge");
+
+    public RentalAgreementDtoSerializer() {
+        super(RentalAgreementDto.class);
+    }
+
+    @Override
+    public void serialize(RentalAgreementDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        writeString(gen, TOOL_CODE, value.getToolCode());
+        writeString(gen, TOOL_TYPE, value.getToolType());
+        writeString(gen, TOOL_BRAND, value.getToolBrand());
+        writeNumber(gen, RENTAL_DAYS, value.getRentalDays());
+        writeString(gen, CHECK_OUT_DATE, value.getCheckOutDate());
+        writeString(gen, DUE_DATE, value.getDueDate());
+        writeCurrency(gen, DAILY_RENTAL_CHARGE, value.getDailyRentalCharge());
+        writeNumber(gen, CHARGE_DAYS, value.getChargeDays());
+        writeCurrency(gen, PRE_DISCOUNT_CHARGE, value.getPreDiscountCharge());
+        if (value.getDiscountPercent() != 0f) {
+            gen.writeFieldName(DISCOUNT_PERCENT);
+            gen.writeNumber(value.getDiscountPercent());
+        }
+        writeCurrency(gen, DISCOUNT_AMOUNT, value.getDiscountAmount());
+        writeCurrency(gen, FINAL_CHARGE, value.getFinalCharge());
+        if (value.getProcessResult() != null) {
+            provider.defaultSerializeField("processResult", value.getProcessResult(), gen);
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        if (value != null) {
+            gen.writeFieldName(name);
+            gen.writeString(value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator gen, SerializableString name, int value) throws IOException {
+        if (value != 0) {
+            gen.writeFieldName(name);
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeCurrency(JsonGenerator gen, SerializableString name, long cents) throws IOException {
+        if (cents != 0) {
+            gen.writeFieldName(name);
+            CurrencySerializer.writeCurrency(cents, gen);
+        }
+    }
+}
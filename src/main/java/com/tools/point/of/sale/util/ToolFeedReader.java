@@ -0,0 +1,110 @@
+package com.tools.point.of.sale.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.tools.point.of.sale.dto.ToolDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a tool feed one tool at a time, so feeds of any size are read in constant memory.
+ * The feed is either NDJSON (one tool object per line) or a single JSON array of tool objects;
+ * the format is detected from the first non-blank character. A tool that cannot be bound is
+ * reported with its line number and reading continues with the next one.
+ *
+ * @author melessweldemichael
+ */
+public class ToolFeedReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives the tools of a feed in feed order.
+     */
+    public interface Listener {
+        void onTool(long lineNumber, ToolDto tool);
+
+        void onError(long lineNumber, String message);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader toolReader;
+
+    public ToolFeedReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.toolReader = objectMapper.readerFor(ToolDto.class);
+    }
+
+    /**
+     * Reads the feed and hands every tool or error to the listener.
+     *
+     * @param feed The NDJSON or JSON array feed.
+     * @param listener Receives the tools and errors.
+     * @throws IOException If the feed cannot be read, or a JSON array feed is malformed.
+     */
+    public void read(InputStream feed, Listener listener) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(feed, 1);
+        int first = input.read();
+        while (first != -1 && Character.isWhitespace(first)) {
+            first = input.read();
+        }
+        if (first == -1) {
+            return;
+        }
+        input.unread(first);
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        if (first == '[') {
+            readArray(reader, listener);
+        } else {
+            readLines(new BufferedReader(reader, BUFFER_SIZE), listener);
+        }
+    }
+
+    private void readLines(BufferedReader reader, Listener listener) throws IOException {
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                listener.onTool(lineNumber, toolReader.readValue(line));
+            } catch (JsonProcessingException ex) {
+                listener.onError(lineNumber, ex.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readArray(Reader reader, Listener listener) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(reader)) {
+            parser.nextToken();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("unexpected end of the tool array");
+                }
+                long lineNumber = parser.currentTokenLocation().getLineNr();
+                // each element is buffered on its own so a bad element can be skipped
+                JsonNode element = parser.readValueAsTree();
+                try {
+                    listener.onTool(lineNumber, toolReader.treeToValue(element, ToolDto.class));
+                } catch (JsonProcessingException ex) {
+                    listener.onError(lineNumber, ex.getOriginalMessage());
+                } catch (IllegalArgumentException ex) {
+                    listener.onError(lineNumber, ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -5,15 +5,11 @@ import com.tools.point.of.sale.dto.ProcessResult;
 import com.tools.point.of.sale.dto.RentalAgreementDto;
 import lombok.extern.slf4j.Slf4j;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.DateTimeException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.time.temporal.TemporalAdjusters;
 
 /**
  * Utility class for handling various operations related to tool rentals.
@@ -25,31 +21,29 @@ import java.time.temporal.TemporalAdjusters;
 public class ToolsRentalUtil {
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+    private static volatile ChargeCalendarIndex calendarIndex = new ChargeCalendarIndex(HolidayCalendar.unitedStates());
+
+    /**
+     * Replaces the holiday calendar used for pricing, e.g. with a regional calendar.
+     * A new calendar index is built for it and swapped in atomically.
+     *
+     * @param holidayCalendar The holiday calendar to use.
+     */
+    public static void useHolidayCalendar(HolidayCalendar holidayCalendar) {
+        calendarIndex = new ChargeCalendarIndex(holidayCalendar);
+    }
 
     /**
      * Calculates the number of chargeable days for a Jackhammer tool.
      * Excludes weekends and holidays such as Labor Day and Independence Day.
+     * A holiday falling on a weekend is not subtracted again.
      *
      * @param startDate The start date of the rental period.
      * @param rentalDays The number of days the tool is rented.
      * @return The number of chargeable days for the Jackhammer.
      */
     public static int getChargeableDaysForJackHammer(String startDate, int rentalDays) {
-
-        LocalDate billingStartDate =  dateFormatter(startDate).plusDays(1);
-        LocalDate endDate = dateFormatter(startDate).plusDays(rentalDays);
-        LocalDate laborDay = getLaborDay(dateFormatter(startDate).getYear());
-        LocalDate independenceDay = getObservedIndependenceDay(dateFormatter(startDate).getYear());
-
-        int chargeableDays = 0;
-
-        for (LocalDate date = billingStartDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            if (isBusinessDayForJackHammer(date, laborDay, independenceDay)) {
-                chargeableDays = chargeableDays + 1;
-            }
-        }
-
-        return chargeableDays;
+        return getNumberOfChargeDays(ChargeMask.WEEKDAY, parseCheckoutDate(startDate), rentalDays);
     }
 
     /**
@@ -61,20 +55,7 @@ public class ToolsRentalUtil {
      * @return The number of chargeable days for the Ladder.
      */
     public static int getChargeableDaysForLadder(String startDate, int rentalDays) {
-        LocalDate billingStartDate = dateFormatter(startDate).plusDays(1);
-        LocalDate endDate = dateFormatter(startDate).plusDays(rentalDays);
-        LocalDate laborDay = getLaborDay(dateFormatter(startDate).getYear());
-        LocalDate independenceDay = getObservedIndependenceDay(dateFormatter(startDate).getYear());
-
-        int chargeableDays = 0;
-
-        for (LocalDate date = billingStartDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            if (isBusinessDayForLadder(date, laborDay, independenceDay)) {
-                chargeableDays = chargeableDays + 1;
-            }
-        }
-
-        return chargeableDays;
+        return getNumberOfChargeDays(ChargeMask.WEEKDAY | ChargeMask.WEEKEND, parseCheckoutDate(startDate), rentalDays);
     }
 
     /**
@@ -86,18 +67,7 @@ public class ToolsRentalUtil {
      * @return The number of chargeable days for the Chainsaw.
      */
     public static int getChargeableDaysForChainSaw(String startDate, int rentalDays) {
-        LocalDate billingStartDate = dateFormatter(startDate).plusDays(1);
-        LocalDate endDate = dateFormatter(startDate).plusDays(rentalDays);
-
-        int chargeableDays = 0;
-
-        for (LocalDate date = billingStartDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            if (isBusinessDayForChainSaw(date)) {
-                chargeableDays = chargeableDays + 1;
-            }
-        }
-
-        return chargeableDays;
+        return getNumberOfChargeDays(ChargeMask.WEEKDAY | ChargeMask.HOLIDAY, parseCheckoutDate(startDate), rentalDays);
     }
 
     /**
@@ -116,62 +86,6 @@ public class ToolsRentalUtil {
                 date.equals(independenceDay));
     }
 
-    /**
-     * Checks if a given date is a business day for a Ladder.
-     * Excludes specific holidays such as Labor Day and Independence Day.
-     *
-     * @param date The date to check.
-     * @param laborDay The Labor Day date for the year.
-     * @param independenceDay The observed Independence Day date for the year.
-     * @return True if the date is a business day, otherwise false.
-     */
-    private static boolean isBusinessDayForLadder(LocalDate date, LocalDate laborDay, LocalDate independenceDay) {
-        return !(date.equals(laborDay) ||
-                date.equals(independenceDay));
-    }
-
-    /**
-     * Checks if a given date is a business day for a Chainsaw.
-     * Excludes weekends but includes all holidays.
-     *
-     * @param date The date to check.
-     * @return True if the date is a business day, otherwise false.
-     */
-    private static boolean isBusinessDayForChainSaw(LocalDate date) {
-        return !(date.getDayOfWeek() == DayOfWeek.SATURDAY ||
-                date.getDayOfWeek() == DayOfWeek.SUNDAY);
-    }
-
-    /**
-     * Calculates the observed date for Independence Day.
-     * If July 4th falls on a weekend, the observed date is adjusted to the nearest weekday.
-     *
-     * @param year The year to calculate for.
-     * @return The observed Independence Day date.
-     */
-    private static LocalDate getObservedIndependenceDay(int year) {
-        LocalDate date = LocalDate.of(year, Month.JULY, 4);
-        if (date.getDayOfWeek() == DayOfWeek.SATURDAY) {
-            return date.minusDays(1);
-        } else if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
-            return date.plusDays(1);
-        } else {
-            return date;
-        }
-    }
-
-    /**
-     * Calculates the date for Labor Day in September.
-     * Labor Day is observed on the first Monday of September.
-     *
-     * @param year The year to calculate for.
-     * @return The Labor Day date.
-     */
-    private static LocalDate getLaborDay(int year) {
-        LocalDate firstDayOfSeptember = LocalDate.of(year, Month.SEPTEMBER, 1);
-        return firstDayOfSeptember.with(TemporalAdjusters.firstInMonth(DayOfWeek.MONDAY));
-    }
-
     /**
      * Validates the rental days
      *
@@ -213,74 +127,87 @@ public class ToolsRentalUtil {
      * @return The formatted date string.
      */
     public static String extractFormatedDate(String checkoutDate) {
-        LocalDate localDate = LocalDate.now();
-        try {
-            localDate = dateFormatter(checkoutDate);
-        } catch (DateTimeParseException e) {
-            log.error("date parsing exception {} " , e.getMessage());
-            e.printStackTrace();
+        return formatDate(parseCheckoutDate(checkoutDate));
+    }
+
+    /**
+     * Formats a date to a string in the format MM/dd/yyyy.
+     * The digits are written directly, without going through a DateTimeFormatter.
+     *
+     * @param date The date to format.
+     * @return The formatted date string.
+     */
+    public static String formatDate(LocalDate date) {
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) {
+            return date.format(formatter);
         }
-        return localDate.format(formatter);
+        char[] chars = new char[10];
+        writeDigits(chars, 0, date.getMonthValue(), 2);
+        chars[2] = '/';
+        writeDigits(chars, 3, date.getDayOfMonth(), 2);
+        chars[5] = '/';
+        writeDigits(chars, 6, year, 4);
+        return new String(chars);
     }
 
     /**
      * Calculates the final charge after applying the discount.
      *
-     * @param preDiscountCharge The charge before discount.
-     * @param discountAmount The discount amount to subtract.
-     * @return The final charge after discount.
+     * @param preDiscountCharge The charge before discount, in cents.
+     * @param discountAmount The discount amount to subtract, in cents.
+     * @return The final charge after discount, in cents.
      */
-    public static float calculateFinalCharge(float preDiscountCharge, float discountAmount) {
+    public static long calculateFinalCharge(long preDiscountCharge, long discountAmount) {
         return preDiscountCharge - discountAmount;
     }
 
     /**
      * Calculates the discount amount based on the percentage and pre-discount charge.
+     * The amount is rounded HALF_UP to whole cents.
      *
      * @param discountPercent The discount percentage.
-     * @param preDiscountCharge The charge before applying the discount.
-     * @return The calculated discount amount.
+     * @param preDiscountCharge The charge before applying the discount, in cents.
+     * @return The calculated discount amount, in cents.
      */
-    public static float calculateDiscountAmount(Integer discountPercent, float preDiscountCharge) {
-        double discountAmount = (discountPercent * preDiscountCharge) / 100;
-        BigDecimal bigDecimalValue = new BigDecimal(discountAmount);
-        int scale = 2;
-        RoundingMode roundingMode = RoundingMode.HALF_UP;
-        BigDecimal bigDecimal = bigDecimalValue.setScale(scale, roundingMode);
-        return bigDecimal.floatValue();
+    public static long calculateDiscountAmount(Integer discountPercent, long preDiscountCharge) {
+        return Money.percentOf(preDiscountCharge, discountPercent);
     }
 
     /**
      * Calculates the pre-discount charge based on the daily rental charge and the number of chargeable days.
      *
-     * @param dailyRentalCharge The daily rental charge.
+     * @param dailyRentalCharge The daily rental charge, in cents.
      * @param chargeDays The number of chargeable days.
-     * @return The pre-discount charge.
+     * @return The pre-discount charge, in cents.
      */
-    public static float calculatePreDiscountCharge(float dailyRentalCharge, int chargeDays) {
-        double value = dailyRentalCharge * chargeDays;
-        BigDecimal bigDecimalValue = new BigDecimal(value);
-        int scale = 2;
-        RoundingMode roundingMode = RoundingMode.HALF_UP;
-        BigDecimal bigDecimal = bigDecimalValue.setScale(scale, roundingMode);
-        return bigDecimal.floatValue();
+    public static long calculatePreDiscountCharge(long dailyRentalCharge, int chargeDays) {
+        return Money.multiply(dailyRentalCharge, chargeDays);
     }
 
     /**
-     * Calculates the number of chargeable days based on the tool type.
+     * Calculates the number of chargeable days from the tool's compiled charge mask.
+     * The counts come from the precomputed {@link ChargeCalendarIndex}, so no date is walked per checkout.
      *
-     * @param toolType The type of tool (e.g., Jackhammer, Ladder, Chainsaw).
+     * @param chargeMask The compiled {@link ChargeMask} of the tool.
      * @param checkoutDate The start date of the rental period.
      * @param rentalDays The number of rental days.
      * @return The number of chargeable days.
      */
-    public static int getNumberOfChargeDays(String toolType, String checkoutDate, Integer rentalDays) {
-        return switch (toolType) {
-            case "Jackhammer" -> getChargeableDaysForJackHammer(checkoutDate, rentalDays);
-            case "Ladder" -> getChargeableDaysForLadder(checkoutDate, rentalDays);
-            case "Chainsaw" -> getChargeableDaysForChainSaw(checkoutDate, rentalDays);
-            default -> 0;
-        };
+    public static int getNumberOfChargeDays(int chargeMask, String checkoutDate, Integer rentalDays) {
+        return getNumberOfChargeDays(chargeMask, parseCheckoutDate(checkoutDate), rentalDays);
+    }
+
+    /**
+     * Calculates the number of chargeable days from the tool's compiled charge mask for an already parsed checkout date.
+     *
+     * @param chargeMask The compiled {@link ChargeMask} of the tool.
+     * @param checkoutDate The start date of the rental period.
+     * @param rentalDays The number of rental days.
+     * @return The number of chargeable days.
+     */
+    public static int getNumberOfChargeDays(int chargeMask, LocalDate checkoutDate, int rentalDays) {
+        return calendarIndex.countChargeDays(checkoutDate.plusDays(1), checkoutDate.plusDays(rentalDays), chargeMask);
     }
 
     /**
@@ -291,29 +218,69 @@ public class ToolsRentalUtil {
      * @return The due date formatted as a string.
      */
     public static String setDueDate(String checkoutDate, Integer rentalDays) {
-        try {
-            LocalDate dueDate = dateFormatter(checkoutDate).plusDays(rentalDays);
-            return dueDate.format(formatter);
-        } catch (DateTimeException ex) {
-            log.error("parsing exception {} " , ex.getMessage());
-        }
-        return "checkoutDate";
+        return formatDate(parseCheckoutDate(checkoutDate).plusDays(rentalDays));
     }
 
+    /**
+     * Parses a checkout date in one of the formats MM/dd/yyyy, yyyy-MM-dd, yyyy.MM.dd or yyyy/MM/dd.
+     *
+     * @param checkoutDate The date string to parse.
+     * @return The parsed date, or today if the string is not in a supported format.
+     * @see #parseCheckoutDate(String)
+     */
     public static final LocalDate dateFormatter(String checkoutDate) {
-        DateTimeFormatter[] formatters = new DateTimeFormatter[] {
-                DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-                DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-                DateTimeFormatter.ofPattern("yyyy.MM.dd"),
-                DateTimeFormatter.ofPattern("yyyy/MM/dd")
-        };
-        for (DateTimeFormatter formatter : formatters) {
-            try {
-                return LocalDate.parse(checkoutDate, formatter);
-            } catch (DateTimeParseException e) {
-                // Ignore the exception and try the next format
+        return parseCheckoutDate(checkoutDate);
+    }
+
+    /**
+     * Parses a checkout date once into the LocalDate used by the rest of the checkout pipeline.
+     * The format is picked by looking at the separator positions (MM/dd/yyyy, yyyy-MM-dd, yyyy.MM.dd or yyyy/MM/dd)
+     * and the digits are read directly, so no formatter is created and no exception is thrown for bad input.
+     * Like the lenient formatter it replaces, a day past the end of the month is moved to the last day of the month.
+     *
+     * @param checkoutDate The date string to parse.
+     * @return The parsed date, or today if the string is not in a supported format.
+     */
+    public static LocalDate parseCheckoutDate(String checkoutDate) {
+        LocalDate date = null;
+        if (checkoutDate != null && checkoutDate.length() == 10) {
+            char separator = checkoutDate.charAt(4);
+            if (checkoutDate.charAt(2) == '/' && checkoutDate.charAt(5) == '/') {
+                date = toDate(readDigits(checkoutDate, 6, 10), readDigits(checkoutDate, 0, 2), readDigits(checkoutDate, 3, 5));
+            } else if ((separator == '-' || separator == '.' || separator == '/') && checkoutDate.charAt(7) == separator) {
+                date = toDate(readDigits(checkoutDate, 0, 4), readDigits(checkoutDate, 5, 7), readDigits(checkoutDate, 8, 10));
             }
         }
-        return LocalDate.now();
+        if (date == null) {
+            log.error("unsupported checkout date {} ", checkoutDate);
+            return LocalDate.now();
+        }
+        return date;
+    }
+
+    private static LocalDate toDate(int year, int month, int dayOfMonth) {
+        if (year < 1 || month < 1 || month > 12 || dayOfMonth < 1 || dayOfMonth > 31) {
+            return null;
+        }
+        return LocalDate.of(year, month, Math.min(dayOfMonth, Month.of(month).length(Year.isLeap(year))));
+    }
+
+    private static int readDigits(String value, int from, int to) {
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
     }
 }
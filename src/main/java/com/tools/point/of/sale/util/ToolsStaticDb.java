@@ -3,38 +3,39 @@ package com.tools.point.of.sale.util;
 import com.tools.point.of.sale.dto.RentalAgreementDto;
 import com.tools.point.of.sale.dto.ToolDto;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A static database class that provides a collection of tool data and rental agreements for a tool rental system.
  *
- * This class initializes a static list of tools with predefined values and provides methods for retrieving
+ * This class holds a static catalog of tools, seeded once with predefined values, and provides methods for retrieving
  * tool details, adding new tools, and populating rental agreements. It serves as a temporary data store,
  * simulating a database for tools and rental agreements in a simplified manner.
+ * It is safe to use from many threads at once: tools are looked up by code in a concurrent hash map and
+ * rental agreements are appended to a lock-free append-only log.
  *
  * Attributes:
- * - tools: A static list that stores tool information, represented by ToolDto objects.
- * - rentalAgreements: A static list that stores rental agreement information, represented by RentalAgreementDto objects.
+ * - tools: A static concurrent map of tool code to tool information, represented by ToolDto objects.
+ * - rentalAgreements: A static append-only log of rental agreement information, represented by RentalAgreementDto objects.
  *
  * @author melessweldemichael
  */
 
 public class ToolsStaticDb {
-    public static final List<ToolDto> tools = new ArrayList<>();
-    public static final List<RentalAgreementDto> rentalAgreements = new ArrayList<>();
+    public static final ConcurrentMap<String, ToolDto> tools = new ConcurrentHashMap<>();
+    public static final AppendOnlyLog<RentalAgreementDto> rentalAgreements = new AppendOnlyLog<>();
 
-    public ToolsStaticDb() {
-        tools.clear();
+    static {
         ToolDto toolDto = new ToolDto();
         toolDto.setToolCode("LADW");
         toolDto.setToolType("Ladder");
         toolDto.setBrand("Werner");
         toolDto.setDailyCharge(1.99f);
         toolDto.setWeekdayCharge("Yes");
-        toolDto.setHolidayCharge("Yes");
-        toolDto.setWeekendCharge("No");
+        toolDto.setHolidayCharge("No");
+        toolDto.setWeekendCharge("Yes");
 
         ToolDto toolDto1 = new ToolDto();
         toolDto1.setToolCode("CHNS");
@@ -42,8 +43,8 @@ public class ToolsStaticDb {
         toolDto1.setBrand("Stihl");
         toolDto1.setDailyCharge(1.49f);
         toolDto1.setWeekdayCharge("Yes");
-        toolDto1.setHolidayCharge("No");
-        toolDto1.setWeekendCharge("Yes");
+        toolDto1.setHolidayCharge("Yes");
+        toolDto1.setWeekendCharge("No");
 
         ToolDto toolDto2 = new ToolDto();
         toolDto2.setToolCode("JAKD");
@@ -63,19 +64,44 @@ public class ToolsStaticDb {
         toolDto3.setHolidayCharge("No");
         toolDto3.setWeekendCharge("No");
 
-        List<ToolDto> toolDtos = Arrays.asList(toolDto, toolDto1, toolDto2, toolDto3);
-        tools.addAll(toolDtos);
+        for (ToolDto tool : new ToolDto[]{toolDto, toolDto1, toolDto2, toolDto3}) {
+            put(tool);
+        }
     }
 
+    /**
+     * @param toolCode The tool code.
+     * @return The tool, or null if there is no tool with the code.
+     */
     public ToolDto getToolDetails(String toolCode) {
-        return tools.stream().filter(tool -> tool.getToolCode().equals(toolCode)).findFirst().get();
+        return toolCode == null ? null : tools.get(toolCode);
     }
 
+    /**
+     * Adds a tool, replacing any tool with the same code. The tool must not be changed afterwards.
+     *
+     * @param toolDto The tool.
+     */
     public void addTool(ToolDto toolDto) {
-        tools.add(toolDto);
+        put(toolDto);
     }
 
     public void populateRentalAggreement(RentalAgreementDto rentalAgreementDto) {
-        rentalAgreements.add(rentalAgreementDto);
+        rentalAgreements.append(rentalAgreementDto);
+    }
+
+    /**
+     * Appends rental agreements as one block of the log.
+     *
+     * @param rentalAgreementDtos The rental agreements.
+     */
+    public void populateRentalAggreements(List<RentalAgreementDto> rentalAgreementDtos) {
+        rentalAgreements.appendAll(rentalAgreementDtos);
+    }
+
+    private static void put(ToolDto toolDto) {
+        // compile the charge mask before the tool is shared, so readers never write to it
+        toolDto.getChargeMask();
+        tools.put(toolDto.getToolCode(), toolDto);
     }
 }
@@ -0,0 +1,99 @@
+package com.tools.point.of.main;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCheckoutRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final BatchCheckoutRunner runner = new BatchCheckoutRunner(new CheckoutServiceFromMainClass(), 4);
+
+    @Test
+    void testCsvBatchKeepsInputOrderAndReportsErrorsInPlace() throws Exception {
+        // Arrange
+        Path input = tempDir.resolve("checkouts.csv");
+        Files.write(input, List.of(
+                "toolCode,rentalDays,discountPercent,checkoutDate",
+                "JAKR,3,25,09/04/2024",
+                "JAKD,0,10,09/01/2024",
+                "T999,3,10,09/01/2024",
+                "LADW,3,10,07/02/2020",
+                "LADW,3,ten,07/02/2020"));
+        Path output = tempDir.resolve("agreements.csv");
+
+        // Act
+        BatchCheckoutRunner.BatchSummary summary = runner.run(input, output);
+
+        // Assert
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(6, lines.size());
+        assertTrue(lines.get(0).startsWith("toolCode,"));
+        assertEquals("JAKR,Jackhammer,Ridgid,3,09/04/2024,09/07/2024,2.99,2,5.98,25,1.50,4.48,Ok,Checkout Successful", lines.get(1));
+        assertTrue(lines.get(2).endsWith("Error,checkoutDto days should be 1 day or more"));
+        assertTrue(lines.get(3).endsWith("Error,Tool not found"));
+        assertTrue(lines.get(4).startsWith("LADW,Ladder,Werner,3,07/02/2020,07/05/2020,1.99,2,3.98,10,0.40,3.58,Ok"));
+        assertTrue(lines.get(5).contains("Line 6: "));
+        assertEquals(5, summary.records());
+        assertEquals(3, summary.failed());
+    }
+
+    @Test
+    void testErrorsReportTheirFileLineNumberAfterBlankLines() throws Exception {
+        // Arrange
+        Path input = tempDir.resolve("checkouts.csv");
+        Files.write(input, List.of(
+                "toolCode,rentalDays,discountPercent,checkoutDate",
+                "",
+                "JAKR,3,25,09/04/2024",
+                "   ",
+                "",
+                "LADW,3,ten,07/02/2020"));
+        Path output = tempDir.resolve("agreements.csv");
+
+        // Act
+        BatchCheckoutRunner.BatchSummary summary = runner.run(input, output);
+
+        // Assert
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(2).contains("Line 6: "), lines.get(2));
+        assertEquals(2, summary.records());
+        assertEquals(1, summary.failed());
+    }
+
+    @Test
+    void testLargeNdjsonBatchKeepsInputOrderAcrossChunks() throws Exception {
+        // Arrange: more than two chunks, with a different rental length on every line
+        int records = BatchCheckoutRunner.CHUNK_SIZE * 2 + 17;
+        List<String> checkouts = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            checkouts.add("{\"toolCode\":\"CHNS\",\"rentalDays\":" + (1 + i % 300)
+                    + ",\"discountPercent\":0,\"checkoutDate\":\"09/05/2024\"}");
+        }
+        Path input = tempDir.resolve("checkouts.ndjson");
+        Files.write(input, checkouts);
+        Path output = tempDir.resolve("agreements.ndjson");
+
+        // Act
+        BatchCheckoutRunner.BatchSummary summary = runner.run(input, output);
+
+        // Assert
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(records, lines.size());
+        for (int i = 0; i < records; i += 997) {
+            assertTrue(lines.get(i).contains("\"rentalDays\":" + (1 + i % 300) + ","), lines.get(i));
+        }
+        assertEquals(records, summary.records());
+        assertEquals(0, summary.failed());
+        assertTrue(summary.recordsPerSecond() > 0);
+    }
+}
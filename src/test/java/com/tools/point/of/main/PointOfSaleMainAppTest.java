@@ -56,4 +56,43 @@ class PointOfSaleMainAppTest {
         List<RentalAgreementDto> rentalAgreementDtos =  pointOfSaleMainApp.performCheckouts(checkoutDtoList);
         assertNotNull(rentalAgreementDtos);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPerformCheckoutsInParallelKeepsInputOrder() {
+        // Arrange
+        String[] toolCodes = {"JAKR", "LADW", "CHNS", "JAKD"};
+        List<CheckoutDto> checkoutDtoList = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            CheckoutDto dto = new CheckoutDto();
+            dto.setToolCode(toolCodes[i % toolCodes.length]);
+            dto.setRentalDays(1 + i % 10);
+            dto.setDiscountPercent(i % 50);
+            dto.setCheckoutDate(String.format("%02d/%02d/2024", 1 + i % 12, 1 + i % 28));
+            checkoutDtoList.add(dto);
+        }
+        // a failing checkout in the middle must not affect its neighbours; an unparsable date is priced
+        // from today rather than failing, so the failure is a missing checkout that throws while priced
+        checkoutDtoList.set(2500, null);
+        checkoutDtoList.get(2501).setRentalDays(0);
+
+        // Act
+        List<RentalAgreementDto> rentalAgreementDtos = pointOfSaleMainApp.performCheckouts(checkoutDtoList, 4);
+
+        // Assert
+        assertEquals(checkoutDtoList.size(), rentalAgreementDtos.size());
+        assertEquals("Error", rentalAgreementDtos.get(2500).getProcessResult().getStatus());
+        assertEquals("Error", rentalAgreementDtos.get(2501).getProcessResult().getStatus());
+        CheckoutServiceFromMainClass checkoutService = new CheckoutServiceFromMainClass();
+        for (int i = 0; i < checkoutDtoList.size(); i++) {
+            if (i == 2500 || i == 2501) {
+                continue;
+            }
+            assertEquals(checkoutService.priceCheckout(checkoutDtoList.get(i)), rentalAgreementDtos.get(i), "checkout " + i);
+        }
+    }
+
+    @Test
+    void testPerformCheckoutsInParallelRejectsInvalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> pointOfSaleMainApp.performCheckouts(new ArrayList<>(), 0));
+    }
+}
@@ -0,0 +1,85 @@
+package com.tools.point.of.sale.config;
+
+import com.tools.point.of.sale.util.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private AdmissionControlConfig admissionControlConfig;
+
+    @BeforeEach
+    public void setUp() {
+        admissionControlConfig = new AdmissionControlConfig();
+        ReflectionTestUtils.setField(admissionControlConfig, "minLimit", 2);
+        ReflectionTestUtils.setField(admissionControlConfig, "latencyTolerance", 2.0);
+        ReflectionTestUtils.setField(admissionControlConfig, "backoffRatio", 0.9);
+        ReflectionTestUtils.setField(admissionControlConfig, "retryAfter", Duration.ofSeconds(3));
+    }
+
+    private static MockFilterChain run(AdmissionControlFilter filter, MockHttpServletResponse response) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/checkout"), response, chain);
+        return chain;
+    }
+
+    @Test
+    public void testRequestOverTheLimitGets503WithRetryAfter() throws Exception {
+        // Arrange
+        AdmissionControlFilter filter = admissionControlConfig.checkoutAdmissionFilter(2, 2).getFilter();
+        AdaptiveConcurrencyLimiter.Permit first = filter.getLimiter().tryAcquire();
+        AdaptiveConcurrencyLimiter.Permit second = filter.getLimiter().tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        MockFilterChain chain = run(filter, response);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals("{\"status\":\"Error\",\"message\":\"Server busy, retry later\"}", response.getContentAsString());
+
+        // a request is admitted again once one in flight completes, and its permit is given back
+        first.complete();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        assertNotNull(run(filter, admitted).getRequest());
+        assertEquals(200, admitted.getStatus());
+        assertEquals(1, filter.getLimiter().getState().inFlight());
+        second.complete();
+    }
+
+    @Test
+    public void testEachEndpointClassHasItsOwnLimiter() throws Exception {
+        // Arrange
+        FilterRegistrationBean<AdmissionControlFilter> checkout = admissionControlConfig.checkoutAdmissionFilter(2, 2);
+        FilterRegistrationBean<AdmissionControlFilter> quote = admissionControlConfig.quoteAdmissionFilter(2, 2);
+        FilterRegistrationBean<AdmissionControlFilter> bulk = admissionControlConfig.bulkAdmissionFilter(2, 2);
+        FilterRegistrationBean<AdmissionControlFilter> tools = admissionControlConfig.importAdmissionFilter(1, 1);
+        checkout.getFilter().getLimiter().tryAcquire();
+        checkout.getFilter().getLimiter().tryAcquire();
+
+        // Act
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = run(quote.getFilter(), response);
+
+        // Assert: quotes are still admitted while checkouts are at their limit
+        assertNotNull(chain.getRequest());
+        assertEquals(Set.of("/checkout"), Set.copyOf(checkout.getUrlPatterns()));
+        assertEquals(Set.of("/quote"), Set.copyOf(quote.getUrlPatterns()));
+        assertEquals(Set.of("/checkouts", "/tools"), Set.copyOf(bulk.getUrlPatterns()));
+        assertEquals(Set.of("/tools/import"), Set.copyOf(tools.getUrlPatterns()));
+        assertEquals(AdmissionControlConfig.IMPORT, tools.getFilter().getLimiter().getState().name());
+    }
+}
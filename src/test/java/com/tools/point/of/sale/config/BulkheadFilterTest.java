@@ -0,0 +1,107 @@
+package com.tools.point.of.sale.config;
+
+import com.tools.point.of.sale.util.AdaptiveConcurrencyLimiter;
+import com.tools.point.of.sale.util.Bulkhead;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadFilterTest {
+
+    private final AtomicInteger served = new AtomicInteger();
+    private FilterRegistrationBean<AdmissionControlFilter> admission;
+    private FilterRegistrationBean<BulkheadFilter> lane;
+
+    @BeforeEach
+    public void setUp() {
+        AdmissionControlConfig admissionControlConfig = new AdmissionControlConfig();
+        ReflectionTestUtils.setField(admissionControlConfig, "minLimit", 2);
+        ReflectionTestUtils.setField(admissionControlConfig, "latencyTolerance", 2.0);
+        ReflectionTestUtils.setField(admissionControlConfig, "backoffRatio", 0.9);
+        ReflectionTestUtils.setField(admissionControlConfig, "retryAfter", Duration.ofSeconds(1));
+        BulkheadConfig bulkheadConfig = new BulkheadConfig();
+        ReflectionTestUtils.setField(bulkheadConfig, "retryAfter", Duration.ofSeconds(2));
+        admission = admissionControlConfig.checkoutAdmissionFilter(2, 2);
+        lane = bulkheadConfig.checkoutBulkheadFilter(1, 0, Duration.ofMillis(10));
+    }
+
+    /**
+     * Runs a request through the two filters in their registration order, as the servlet container does.
+     */
+    private MockHttpServletResponse checkout() throws Exception {
+        Filter[] filters = List.of(lane, admission).stream()
+                .sorted(Comparator.comparingInt(FilterRegistrationBean::getOrder))
+                .map(FilterRegistrationBean::getFilter)
+                .toArray(Filter[]::new);
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                served.incrementAndGet();
+            }
+        }, filters);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain.doFilter(new MockHttpServletRequest("POST", "/checkout"), response);
+        return response;
+    }
+
+    @Test
+    public void testRequestRejectedByAdmissionNeverEntersTheLane() throws Exception {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = admission.getFilter().getLimiter();
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.tryAcquire();
+
+        // Act
+        MockHttpServletResponse response = checkout();
+
+        // Assert
+        assertTrue(admission.getOrder() < lane.getOrder());
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        Bulkhead bulkhead = lane.getFilter().getBulkhead();
+        assertEquals(0, bulkhead.getAccepted());
+        assertEquals(0, bulkhead.getRejected());
+        assertEquals(0, served.get());
+        first.complete();
+        second.complete();
+    }
+
+    @Test
+    public void testRequestRejectedByAFullLaneGivesItsAdmissionPermitBack() throws Exception {
+        // Arrange
+        Bulkhead bulkhead = lane.getFilter().getBulkhead();
+        assertTrue(bulkhead.tryEnter());
+
+        // Act
+        MockHttpServletResponse response = checkout();
+
+        // Assert
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(ServerBusyResponse.BODY, response.getContentAsString());
+        assertEquals(0, admission.getFilter().getLimiter().getState().inFlight());
+        assertEquals(0, served.get());
+
+        // once the lane has room the request goes through both filters
+        bulkhead.exit();
+        assertEquals(200, checkout().getStatus());
+        assertEquals(1, served.get());
+        assertEquals(0, bulkhead.getActive());
+    }
+}
@@ -0,0 +1,124 @@
+package com.tools.point.of.sale.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalAgreementSchemaMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RentalAgreementSchemaMigration migration;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        migration = new RentalAgreementSchemaMigration();
+        ReflectionTestUtils.setField(migration, "dataSource", dataSource);
+        jdbcTemplate.execute("CREATE TABLE tool (tool_code VARCHAR(255) PRIMARY KEY, tool_type VARCHAR(255), "
+                + "brand VARCHAR(255), daily_charge REAL, weekday_charge VARCHAR(255), weekend_charge VARCHAR(255), "
+                + "holiday_charge VARCHAR(255), units INTEGER)");
+        jdbcTemplate.update("INSERT INTO tool VALUES ('LADW', 'Ladder', 'Werner', 1.99, 'Yes', 'Yes', 'No', NULL)");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    private void createLegacyTable() {
+        jdbcTemplate.execute("CREATE TABLE rental_agreement (id BIGINT PRIMARY KEY, tool_code VARCHAR(255), "
+                + "tool_type VARCHAR(255), tool_brand VARCHAR(255), rental_days INTEGER, check_out_date VARCHAR(255), "
+                + "due_date VARCHAR(255), daily_rental_charge DOUBLE PRECISION, charge_days INTEGER, "
+                + "pre_discount_charge DOUBLE PRECISION, discount_percent DOUBLE PRECISION, "
+                + "discount_amount DOUBLE PRECISION, final_charge DOUBLE PRECISION)");
+        jdbcTemplate.update("INSERT INTO rental_agreement VALUES (1, 'LADW', 'Ladder', 'Werner', 3, '07/02/2020', "
+                + "'07/05/2020', 1.99, 2, 3.98, 10.0, 0.40, 3.58)");
+        jdbcTemplate.update("INSERT INTO rental_agreement VALUES (120, 'CHNS', 'Chainsaw', 'Stihl', 5, '07/02/2015', "
+                + "'07/07/2015', 1.49, 3, 4.47, 25.0, 1.12, 3.35)");
+    }
+
+    private String columnType(String column) {
+        return jdbcTemplate.queryForList("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = 'PUBLIC' "
+                + "AND TABLE_NAME = 'RENTAL_AGREEMENT' AND COLUMN_NAME = ?", String.class, column.toUpperCase())
+                .stream().findFirst().orElse(null);
+    }
+
+    @Test
+    public void testLegacyTableIsMigratedAndASecondRunChangesNothing() {
+        // Arrange
+        createLegacyTable();
+
+        // Act
+        migration.afterPropertiesSet();
+        migration.afterPropertiesSet();
+
+        // Assert
+        assertEquals("DATE", columnType("check_out_date"));
+        assertEquals("DATE", columnType("due_date"));
+        assertEquals("BIGINT", columnType("final_charge_cents"));
+        assertEquals("INTEGER", columnType("discount_percent"));
+        assertNull(columnType("final_charge"));
+        assertNull(columnType("check_out_date_migrated"));
+        assertNull(columnType("tool_type"));
+        assertNull(columnType("tool_brand"));
+
+        Map<String, Object> ladder = jdbcTemplate.queryForMap("SELECT * FROM rental_agreement WHERE id = 1");
+        assertEquals(LocalDate.of(2020, 7, 2), jdbcTemplate.queryForObject(
+                "SELECT check_out_date FROM rental_agreement WHERE id = 1", LocalDate.class));
+        assertEquals(LocalDate.of(2020, 7, 5), jdbcTemplate.queryForObject(
+                "SELECT due_date FROM rental_agreement WHERE id = 1", LocalDate.class));
+        assertEquals(199L, ladder.get("DAILY_RENTAL_CHARGE_CENTS"));
+        assertEquals(398L, ladder.get("PRE_DISCOUNT_CHARGE_CENTS"));
+        assertEquals(40L, ladder.get("DISCOUNT_AMOUNT_CENTS"));
+        assertEquals(358L, ladder.get("FINAL_CHARGE_CENTS"));
+        assertEquals(10, ladder.get("DISCOUNT_PERCENT"));
+
+        // the tool known only from an agreement is added to the tool table
+        Map<String, Object> chainsaw = jdbcTemplate.queryForMap("SELECT tool_type, brand, daily_charge FROM tool WHERE tool_code = 'CHNS'");
+        assertEquals("Chainsaw", chainsaw.get("TOOL_TYPE"));
+        assertEquals("Stihl", chainsaw.get("BRAND"));
+        assertEquals(1.49f, ((Number) chainsaw.get("DAILY_CHARGE")).floatValue());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tool", Integer.class));
+
+        // pooled ids continue past the highest existing id
+        assertEquals(170L, jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR rental_agreement_seq", Long.class));
+    }
+
+    @Test
+    public void testDateColumnLeftByAnInterruptedRunIsRenamedBack() {
+        // Arrange: a previous run failed after dropping check_out_date and before renaming its migrated copy
+        jdbcTemplate.execute("CREATE TABLE rental_agreement (id BIGINT PRIMARY KEY, tool_code VARCHAR(255), "
+                + "rental_days INTEGER, due_date DATE, check_out_date_migrated DATE)");
+        jdbcTemplate.update("INSERT INTO rental_agreement VALUES (1, 'LADW', 3, DATE '2020-07-05', DATE '2020-07-02')");
+
+        // Act
+        migration.afterPropertiesSet();
+        migration.afterPropertiesSet();
+
+        // Assert
+        assertEquals("DATE", columnType("check_out_date"));
+        assertNull(columnType("check_out_date_migrated"));
+        assertEquals(LocalDate.of(2020, 7, 2), jdbcTemplate.queryForObject(
+                "SELECT check_out_date FROM rental_agreement WHERE id = 1", LocalDate.class));
+    }
+
+    @Test
+    public void testMissingTableIsLeftForHibernate() {
+        // Act
+        migration.afterPropertiesSet();
+
+        // Assert
+        assertNull(columnType("id"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.tools.point.of.sale.controller;
+
+import com.tools.point.of.sale.dto.CheckedOutUnitDto;
+import com.tools.point.of.sale.dto.ToolAvailabilityDto;
+import com.tools.point.of.sale.entity.Tool;
+import com.tools.point.of.sale.service.AvailabilityIndex;
+import com.tools.point.of.sale.service.ToolCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AvailabilityController.class)
+public class AvailabilityControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AvailabilityIndex availabilityIndex;
+
+    @MockBean
+    private ToolCatalog toolCatalog;
+
+    @Test
+    public void testAvailability() throws Exception {
+        Tool ladder = Tool.builder().toolCode("LADW").toolType("Ladder").units(3).build();
+        LocalDate from = LocalDate.of(2024, 9, 4);
+        LocalDate to = LocalDate.of(2024, 9, 6);
+        when(toolCatalog.findTool("LADW")).thenReturn(ladder);
+        when(availabilityIndex.getAvailability(ladder, from, to)).thenReturn(ToolAvailabilityDto.builder()
+                .toolCode("LADW").from(from).to(to).units(3).freeUnits(List.of(2, 3)).bookedUnits(1).build());
+
+        mockMvc.perform(get("/tools/LADW/availability").param("from", "09/04/2024").param("to", "09/06/2024"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value("09/04/2024"))
+                .andExpect(jsonPath("$.freeUnits[0]").value(2))
+                .andExpect(jsonPath("$.bookedUnits").value(1));
+    }
+
+    @Test
+    public void testAvailabilityOfUnknownToolIsNotFound() throws Exception {
+        when(toolCatalog.findTool("T999")).thenReturn(null);
+
+        mockMvc.perform(get("/tools/T999/availability").param("from", "09/04/2024").param("to", "09/06/2024"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testAvailabilityWithReversedRangeIsBadRequest() throws Exception {
+        mockMvc.perform(get("/tools/LADW/availability").param("from", "09/06/2024").param("to", "09/04/2024"))
+                .andExpect(status().isBadRequest());
+        verify(availabilityIndex, never()).getAvailability(any(), any(), any());
+    }
+
+    @Test
+    public void testCheckedOut() throws Exception {
+        LocalDate on = LocalDate.of(2024, 9, 5);
+        when(availabilityIndex.getCheckedOut("LADW", on)).thenReturn(List.of(
+                new CheckedOutUnitDto(1, 7L, LocalDate.of(2024, 9, 4), LocalDate.of(2024, 9, 7))));
+
+        mockMvc.perform(get("/tools/LADW/checked-out").param("on", "09/05/2024"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].unit").value(1))
+                .andExpect(jsonPath("$[0].rentalAgreementId").value(7))
+                .andExpect(jsonPath("$[0].dueDate").value("09/07/2024"));
+    }
+}
@@ -5,7 +5,9 @@ import com.tools.point.of.sale.dto.CheckoutDto;
 import com.tools.point.of.sale.dto.ProcessResult;
 import com.tools.point.of.sale.dto.RentalAgreementDto;
 import com.tools.point.of.sale.dto.ToolDto;
+import com.tools.point.of.sale.dto.ToolImportResultDto;
 import com.tools.point.of.sale.service.CheckoutService;
+import com.tools.point.of.sale.service.IdempotencyStore;
 import com.tools.point.of.sale.service.ToolService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,11 +17,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(PointOfSaleController.class)
@@ -34,6 +39,9 @@ public class PointOfSaleControllerTest {
     @MockBean
     private ToolService toolService;
 
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -166,4 +174,124 @@ public class PointOfSaleControllerTest {
                 .andExpect(jsonPath("$.processResult.status").value("Error"))
                 .andExpect(jsonPath("$.processResult.message").value("rental days should be 1 day or more"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testQuote() throws Exception {
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setToolCode("JAKR");
+        checkoutDto.setRentalDays(3);
+        checkoutDto.setDiscountPercent(25);
+        checkoutDto.setCheckoutDate("09/04/2024");
+
+        RentalAgreementDto rentalAgreementDto = RentalAgreementDto.builder()
+                .toolCode("JAKR")
+                .finalCharge(448)
+                .processResult(ProcessResult.builder().status("Ok").message("Quote Successful").build())
+                .build();
+
+        when(checkoutService.quoteTool(any(CheckoutDto.class))).thenReturn(rentalAgreementDto);
+
+        mockMvc.perform(post("/quote")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(checkoutDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.finalCharge").value("$4.48"))
+                .andExpect(jsonPath("$.processResult.status").value("Ok"))
+                .andExpect(jsonPath("$.processResult.message").value("Quote Successful"));
+        verify(checkoutService, never()).checkoutTool(any(CheckoutDto.class));
+    }
+
+    @Test
+    public void testCheckouts() throws Exception {
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setToolCode("JAKR");
+        checkoutDto.setRentalDays(3);
+        checkoutDto.setDiscountPercent(25);
+        checkoutDto.setCheckoutDate("09/04/2024");
+
+        CheckoutDto invalidCheckoutDto = new CheckoutDto();
+        invalidCheckoutDto.setToolCode("JAKR");
+        invalidCheckoutDto.setRentalDays(0);
+        invalidCheckoutDto.setDiscountPercent(25);
+        invalidCheckoutDto.setCheckoutDate("09/04/2024");
+
+        List<RentalAgreementDto> rentalAgreementDtos = Arrays.asList(
+                RentalAgreementDto.builder().processResult(ProcessResult.builder().status("Ok").message("Checkout Successful").build()).build(),
+                RentalAgreementDto.builder().processResult(ProcessResult.builder().status("Error").message("checkoutDto days should be 1 day or more").build()).build());
+
+        when(checkoutService.checkoutTools(anyList())).thenReturn(rentalAgreementDtos);
+
+        mockMvc.perform(post("/checkouts")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(Arrays.asList(checkoutDto, invalidCheckoutDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].processResult.status").value("Ok"))
+                .andExpect(jsonPath("$[1].processResult.status").value("Error"));
+    }
+
+    @Test
+    public void testImportTools() throws Exception {
+        ToolImportResultDto result = new ToolImportResultDto();
+        result.setImported(1);
+        result.addError(2, "toolType is required");
+        result.setProcessResult(ProcessResult.builder().status("Ok").message("Import Successful").build());
+
+        when(toolService.importTools(any(InputStream.class))).thenReturn(result);
+
+        mockMvc.perform(post("/tools/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"toolCode\":\"LADW\",\"toolType\":\"Ladder\"}\n{\"toolCode\":\"CHNS\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].lineNumber").value(2));
+        verify(toolService, times(1)).importTools(any(InputStream.class));
+    }
+
+    @Test
+    public void testUpsertTools() throws Exception {
+        ToolDto toolDto = new ToolDto();
+        toolDto.setToolCode("LADW");
+        toolDto.setToolType("Ladder");
+        toolDto.setBrand("Werner");
+        toolDto.setDailyCharge(1.99f);
+
+        ToolImportResultDto result = new ToolImportResultDto();
+        result.setImported(1);
+        result.setUpdated(1);
+
+        when(toolService.upsertTools(anyList())).thenReturn(result);
+
+        mockMvc.perform(put("/tools")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(List.of(toolDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.inserted").value(0));
+    }
+
+    @Test
+    public void testCheckoutWithIdempotencyKeyGoesThroughTheStore() throws Exception {
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setToolCode("JAKR");
+        checkoutDto.setRentalDays(3);
+        checkoutDto.setDiscountPercent(25);
+        checkoutDto.setCheckoutDate("09/04/2024");
+
+        RentalAgreementDto rentalAgreementDto = new RentalAgreementDto();
+        rentalAgreementDto.setProcessResult(ProcessResult.builder().status("Ok").message("Checkout Successful").build());
+
+        when(checkoutService.checkoutTool(any(CheckoutDto.class))).thenReturn(rentalAgreementDto);
+        when(idempotencyStore.checkout(eq("key-1"), eq(checkoutDto), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<RentalAgreementDto>>getArgument(2).get());
+
+        mockMvc.perform(post("/checkout")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(checkoutDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processResult.status").value("Ok"));
+        verify(idempotencyStore, times(1)).checkout(eq("key-1"), eq(checkoutDto), any());
+        verify(checkoutService, times(1)).checkoutTool(checkoutDto);
+    }
+}
@@ -0,0 +1,77 @@
+package com.tools.point.of.sale.controller;
+
+import com.tools.point.of.sale.repository.RentalAgreementSummary;
+import com.tools.point.of.sale.service.RentalAgreementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RentalAgreementController.class)
+public class RentalAgreementControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RentalAgreementService rentalAgreementService;
+
+    @Test
+    public void testExportCsv() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("id,toolCode\n1,LADW\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(rentalAgreementService).exportAgreements(eq("csv"), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/rental-agreements/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(content().string("id,toolCode\n1,LADW\n"));
+    }
+
+    @Test
+    public void testExportUnknownFormat() throws Exception {
+        mockMvc.perform(get("/rental-agreements/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(rentalAgreementService);
+    }
+
+    @Test
+    public void testFindOpenAgreementsOfTool() throws Exception {
+        RentalAgreementSummary summary = new SpelAwareProxyProjectionFactory().createProjection(RentalAgreementSummary.class,
+                Map.of("id", 7L, "toolCode", "LADW", "rentalDays", 3,
+                        "checkOutDate", LocalDate.of(2020, 7, 2), "dueDate", LocalDate.of(2020, 7, 5), "finalCharge", 358L));
+        when(rentalAgreementService.findByTool("LADW", LocalDate.of(2020, 7, 4), 0, 50)).thenReturn(List.of(summary));
+
+        mockMvc.perform(get("/rental-agreements/tool/LADW").param("openOn", "07/04/2020"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].dueDate").value("07/05/2020"))
+                .andExpect(jsonPath("$[0].finalCharge").value("$3.58"));
+    }
+
+    @Test
+    public void testFindByDueDateRejectsBadDate() throws Exception {
+        mockMvc.perform(get("/rental-agreements/due").param("from", "07/32/2020").param("to", "07/31/2020"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(rentalAgreementService);
+    }
+}
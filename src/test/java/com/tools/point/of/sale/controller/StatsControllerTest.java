@@ -0,0 +1,53 @@
+package com.tools.point.of.sale.controller;
+
+import com.tools.point.of.sale.dto.RevenueStatsDto;
+import com.tools.point.of.sale.dto.RevenueTotalsDto;
+import com.tools.point.of.sale.service.RevenueAggregator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatsController.class)
+public class StatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RevenueAggregator revenueAggregator;
+
+    @Test
+    public void testStats() throws Exception {
+        RevenueTotalsDto totals = new RevenueTotalsDto(2, 5, 897, 150, 747);
+        when(revenueAggregator.getStats()).thenReturn(RevenueStatsDto.builder()
+                .total(totals)
+                .byTool(Map.of("JAKR", totals))
+                .byToolType(Map.of("Jackhammer", totals))
+                .byDay(Map.of(LocalDate.of(2024, 9, 4), totals))
+                .build());
+
+        mockMvc.perform(get("/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total.agreements").value(2))
+                .andExpect(jsonPath("$.total.finalCharge").value("$7.47"))
+                .andExpect(jsonPath("$.byTool.JAKR.chargeDays").value(5))
+                .andExpect(jsonPath("$.byDay['2024-09-04'].discountAmount").value("$1.50"));
+    }
+
+    @Test
+    public void testToolStatsNotFound() throws Exception {
+        when(revenueAggregator.getToolStats("T999")).thenReturn(null);
+
+        mockMvc.perform(get("/stats/tool/T999"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,92 @@
+package com.tools.point.of.sale.repository;
+
+import com.tools.point.of.sale.entity.Tool;
+import com.tools.point.of.sale.repository.ToolRepositoryCustom.UpsertCounts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ToolRepositoryImplTest {
+
+    @Autowired
+    private ToolRepository toolRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private static Tool tool(String toolCode, float dailyCharge, Integer units) {
+        return Tool.builder().toolCode(toolCode).toolType("Ladder").brand("Werner").dailyCharge(dailyCharge)
+                .weekdayCharge("Yes").weekendCharge("Yes").holidayCharge("No").units(units).build();
+    }
+
+    private Tool stored(String toolCode) {
+        entityManager.clear();
+        return toolRepository.findById(toolCode).orElseThrow();
+    }
+
+    @Test
+    public void testNewToolsAreInserted() {
+        // Act
+        UpsertCounts counts = toolRepository.upsertAll(List.of(tool("LADW", 1.99f, null), tool("LADX", 2.49f, 3)));
+
+        // Assert
+        assertEquals(new UpsertCounts(2, 0, 0), counts);
+        Tool ladder = stored("LADW");
+        assertEquals("Werner", ladder.getBrand());
+        assertEquals(1.99f, ladder.getDailyCharge());
+        assertNull(ladder.getUnits());
+        assertEquals(3, stored("LADX").getUnits());
+    }
+
+    @Test
+    public void testChangedToolsAreUpdated() {
+        // Arrange
+        toolRepository.upsertAll(List.of(tool("LADW", 1.99f, null), tool("CHNS", 1.49f, 2)));
+
+        // Act
+        UpsertCounts counts = toolRepository.upsertAll(List.of(tool("LADW", 2.49f, null), tool("CHNS", 1.49f, 5)));
+
+        // Assert
+        assertEquals(new UpsertCounts(0, 2, 0), counts);
+        assertEquals(2.49f, stored("LADW").getDailyCharge());
+        assertEquals(5, stored("CHNS").getUnits());
+    }
+
+    @Test
+    public void testToolsEqualToTheStoredRowAreNotWritten() {
+        // Arrange: the charges are read back from the REAL column and compared as floats
+        toolRepository.upsertAll(List.of(tool("LADW", 1.99f, null), tool("CHNS", 1.49f, 2), tool("JAKR", 2.99f, 0)));
+
+        // Act
+        UpsertCounts counts = toolRepository.upsertAll(List.of(tool("LADW", 1.99f, null), tool("CHNS", 1.49f, 2), tool("JAKR", 2.99f, 0)));
+
+        // Assert
+        assertEquals(new UpsertCounts(0, 0, 3), counts);
+    }
+
+    @Test
+    public void testLargeUpsertIsSplitIntoChunksAndLastDuplicateWins() {
+        // Arrange
+        List<Tool> tools = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            tools.add(tool("T" + i, 1.99f, null));
+        }
+        toolRepository.upsertAll(tools.subList(0, 600));
+        tools.add(tool("T0", 3.99f, null));
+
+        // Act
+        UpsertCounts counts = toolRepository.upsertAll(tools);
+
+        // Assert
+        assertEquals(new UpsertCounts(600, 1, 599), counts);
+        assertEquals(1200, toolRepository.count());
+        assertEquals(3.99f, stored("T0").getDailyCharge());
+    }
+}
@@ -0,0 +1,138 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.dto.CheckedOutUnitDto;
+import com.tools.point.of.sale.dto.ToolAvailabilityDto;
+import com.tools.point.of.sale.entity.RentalAgreement;
+import com.tools.point.of.sale.entity.Tool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityIndexImplTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 9, 1);
+
+    private AvailabilityIndexImpl availabilityIndex;
+
+    @BeforeEach
+    public void setUp() {
+        availabilityIndex = new AvailabilityIndexImpl();
+        availabilityIndex.setClock(clockAt(TODAY));
+    }
+
+    private static Clock clockAt(LocalDate date) {
+        return Clock.fixed(date.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    private static Tool tool(String toolCode, Integer units) {
+        return Tool.builder().toolCode(toolCode).toolType("Ladder").units(units).build();
+    }
+
+    private void checkout(long id, String toolCode, LocalDate checkOutDate, int rentalDays) {
+        availabilityIndex.record(RentalAgreement.builder().id(id).toolCode(toolCode).checkOutDate(checkOutDate)
+                .rentalDays(rentalDays).dueDate(checkOutDate.plusDays(rentalDays)).build());
+    }
+
+    @Test
+    public void testFreeUnitsOfDateRange() {
+        // Arrange: unit 1 is out 09/04-09/06, unit 2 is out 09/05-09/09
+        Tool ladder = tool("LADW", 3);
+        checkout(1, "LADW", LocalDate.of(2024, 9, 4), 3);
+        checkout(2, "LADW", LocalDate.of(2024, 9, 5), 5);
+
+        // Act
+        ToolAvailabilityDto overlapping = availabilityIndex.getAvailability(ladder, LocalDate.of(2024, 9, 6), LocalDate.of(2024, 9, 8));
+        ToolAvailabilityDto afterFirst = availabilityIndex.getAvailability(ladder, LocalDate.of(2024, 9, 7), LocalDate.of(2024, 9, 7));
+        ToolAvailabilityDto before = availabilityIndex.getAvailability(ladder, LocalDate.of(2024, 9, 2), LocalDate.of(2024, 9, 3));
+
+        // Assert
+        assertEquals(List.of(3), overlapping.getFreeUnits());
+        assertEquals(2, overlapping.getBookedUnits());
+        assertEquals(List.of(1, 3), afterFirst.getFreeUnits());
+        assertEquals(List.of(1, 2, 3), before.getFreeUnits());
+    }
+
+    @Test
+    public void testUnitIsReusedOnceReturned() {
+        Tool ladder = tool("LADW", 2);
+        checkout(1, "LADW", LocalDate.of(2024, 9, 4), 3);
+        // back on 09/07, so the same unit can go out again that day
+        checkout(2, "LADW", LocalDate.of(2024, 9, 7), 2);
+
+        List<CheckedOutUnitDto> out = availabilityIndex.getCheckedOut("LADW", LocalDate.of(2024, 9, 7));
+
+        assertEquals(1, out.size());
+        assertEquals(1, out.get(0).getUnit());
+        assertEquals(2L, out.get(0).getRentalAgreementId());
+        assertEquals(List.of(2), availabilityIndex.getAvailability(ladder, LocalDate.of(2024, 9, 4), LocalDate.of(2024, 9, 8)).getFreeUnits());
+    }
+
+    @Test
+    public void testRentalsArrivingOutOfOrderArePackedOntoTheUnits() {
+        // Arrange: at most two rentals are out on any day, but first fit in arrival order
+        // would leave no unit for the last one
+        Tool ladder = tool("LADW", 2);
+        LocalDate start = LocalDate.of(2024, 9, 2);
+        checkout(1, "LADW", start, 4);
+        checkout(2, "LADW", start.plusDays(8), 4);
+        checkout(3, "LADW", start.plusDays(2), 4);
+        checkout(4, "LADW", start.plusDays(10), 4);
+
+        // Act
+        checkout(5, "LADW", start.plusDays(5), 4);
+
+        // Assert
+        ToolAvailabilityDto availability = availabilityIndex.getAvailability(ladder, start, start.plusDays(13));
+        assertEquals(0, availability.getOverbooked());
+        assertEquals(2, availability.getBookedUnits());
+        List<CheckedOutUnitDto> out = availabilityIndex.getCheckedOut("LADW", start.plusDays(8));
+        assertEquals(2, out.size());
+        assertEquals(List.of(2L, 5L), out.stream().map(CheckedOutUnitDto::getRentalAgreementId).sorted().toList());
+        assertNotEquals(out.get(0).getUnit(), out.get(1).getUnit());
+        assertEquals(List.of(1, 2), availabilityIndex.getAvailability(ladder, start.plusDays(14), start.plusDays(14)).getFreeUnits());
+    }
+
+    @Test
+    public void testRentalsBeyondUnitsAreOverbooked() {
+        Tool jackhammer = tool("JAKD", 1);
+        checkout(1, "JAKD", LocalDate.of(2024, 9, 4), 3);
+        checkout(2, "JAKD", LocalDate.of(2024, 9, 5), 3);
+
+        ToolAvailabilityDto availability = availabilityIndex.getAvailability(jackhammer, LocalDate.of(2024, 9, 5), LocalDate.of(2024, 9, 5));
+
+        assertEquals(List.of(), availability.getFreeUnits());
+        assertEquals(1, availability.getBookedUnits());
+        assertEquals(1, availability.getOverbooked());
+    }
+
+    @Test
+    public void testUntrackedToolReportsOnlyBookedUnits() {
+        Tool chainsaw = tool("CHNS", null);
+        checkout(1, "CHNS", LocalDate.of(2024, 9, 4), 3);
+        checkout(2, "CHNS", LocalDate.of(2024, 9, 4), 3);
+
+        ToolAvailabilityDto availability = availabilityIndex.getAvailability(chainsaw, LocalDate.of(2024, 9, 4), LocalDate.of(2024, 9, 4));
+
+        assertNull(availability.getFreeUnits());
+        assertEquals(2, availability.getBookedUnits());
+        assertEquals(0, availability.getOverbooked());
+    }
+
+    @Test
+    public void testPruneDropsReturnedRentals() {
+        checkout(1, "LADW", LocalDate.of(2024, 9, 2), 3);
+        checkout(2, "LADW", LocalDate.of(2024, 9, 6), 3);
+
+        availabilityIndex.setClock(clockAt(LocalDate.of(2024, 9, 5)));
+        availabilityIndex.prune();
+
+        assertTrue(availabilityIndex.getCheckedOut("LADW", LocalDate.of(2024, 9, 3)).isEmpty());
+        assertEquals(1, availabilityIndex.getCheckedOut("LADW", LocalDate.of(2024, 9, 7)).size());
+    }
+}
@@ -5,7 +5,11 @@ import com.tools.point.of.sale.dto.RentalAgreementDto;
 import com.tools.point.of.sale.entity.RentalAgreement;
 import com.tools.point.of.sale.entity.Tool;
 import com.tools.point.of.sale.repository.RentalAgreementRepository;
-import com.tools.point.of.sale.repository.ToolRepository;
+import com.tools.point.of.sale.service.AvailabilityIndex;
+import com.tools.point.of.sale.service.RevenueAggregator;
+import com.tools.point.of.sale.service.ToolCatalog;
+import com.tools.point.of.sale.service.ToolInventory;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -14,7 +18,9 @@ import org.mockito.MockitoAnnotations;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,11 +28,23 @@ import static org.mockito.Mockito.*;
 
 class CheckoutServiceImplTest {
     @Mock
-    private ToolRepository toolRepository;
+    private ToolCatalog toolCatalog;
 
     @Mock
     private RentalAgreementRepository rentalAgreementRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private RevenueAggregator revenueAggregator;
+
+    @Mock
+    private ToolInventory toolInventory;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
     @InjectMocks
     private CheckoutServiceImpl checkoutService;
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
@@ -34,6 +52,7 @@ class CheckoutServiceImplTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(toolInventory.reserve(any(Tool.class), any(LocalDate.class), any(LocalDate.class))).thenReturn(ToolInventory.Reservation.NONE);
     }
 
     @Test
@@ -57,7 +76,7 @@ class CheckoutServiceImplTest {
         RentalAgreement rentalAgreement = new RentalAgreement();
         // Populate rentalAgreement with expected values
 
-        when(toolRepository.getById("JAKR")).thenReturn(tool);
+        when(toolCatalog.findTool("JAKR")).thenReturn(tool);
         when(rentalAgreementRepository.save(any(RentalAgreement.class))).thenReturn(rentalAgreement);
 
         // Act
@@ -69,10 +88,12 @@ class CheckoutServiceImplTest {
         assertEquals(3, result.getRentalDays());
         assertEquals(25, result.getDiscountPercent());
         assertEquals(LocalDate.of(2024, 9, 7).format(formatter), result.getDueDate());
-        assertEquals(5.98f, result.getPreDiscountCharge());
-        assertEquals(1.50f, result.getDiscountAmount());
-        assertEquals(4.48f, result.getFinalCharge());
+        assertEquals(598L, result.getPreDiscountCharge());
+        assertEquals(150L, result.getDiscountAmount());
+        assertEquals(448L, result.getFinalCharge());
         verify(rentalAgreementRepository, times(1)).save(any(RentalAgreement.class));
+        verify(revenueAggregator, times(1)).record(eq(result), argThat(saved -> LocalDate.of(2024, 9, 4).equals(saved.getCheckOutDate())));
+        verify(availabilityIndex, times(1)).record(any(RentalAgreement.class));
     }
 
     @Test
@@ -114,7 +135,7 @@ class CheckoutServiceImplTest {
         RentalAgreement rentalAgreement = new RentalAgreement();
         // Populate rentalAgreement with expected values
 
-        when(toolRepository.getById("JAKD")).thenReturn(tool);
+        when(toolCatalog.findTool("JAKD")).thenReturn(tool);
         when(rentalAgreementRepository.save(any(RentalAgreement.class))).thenReturn(rentalAgreement);
 
         // Act
@@ -126,9 +147,9 @@ class CheckoutServiceImplTest {
         assertEquals(6, result.getRentalDays());
         assertEquals(0, result.getDiscountPercent());
         assertEquals(LocalDate.of(2015, 9, 8).format(formatter), result.getDueDate());
-        assertEquals(8.97f, result.getPreDiscountCharge());
-        assertEquals(0.0f, result.getDiscountAmount());
-        assertEquals(8.97f, result.getFinalCharge());
+        assertEquals(897L, result.getPreDiscountCharge());
+        assertEquals(0L, result.getDiscountAmount());
+        assertEquals(897L, result.getFinalCharge());
         verify(rentalAgreementRepository, times(1)).save(any(RentalAgreement.class));
     }
 
@@ -153,7 +174,7 @@ class CheckoutServiceImplTest {
         RentalAgreement rentalAgreement = new RentalAgreement();
         // Populate rentalAgreement with expected values
 
-        when(toolRepository.getById("JAKR")).thenReturn(tool);
+        when(toolCatalog.findTool("JAKR")).thenReturn(tool);
         when(rentalAgreementRepository.save(any(RentalAgreement.class))).thenReturn(rentalAgreement);
 
         // Act
@@ -165,9 +186,9 @@ class CheckoutServiceImplTest {
         assertEquals(9, result.getRentalDays());
         assertEquals(0, result.getDiscountPercent());
         assertEquals(LocalDate.of(2015, 7, 11).format(formatter), result.getDueDate());
-        assertEquals(14.95f, result.getPreDiscountCharge());
-        assertEquals(0.0f, result.getDiscountAmount());
-        assertEquals(14.95f, result.getFinalCharge());
+        assertEquals(1495L, result.getPreDiscountCharge());
+        assertEquals(0L, result.getDiscountAmount());
+        assertEquals(1495L, result.getFinalCharge());
         verify(rentalAgreementRepository, times(1)).save(any(RentalAgreement.class));
     }
 
@@ -192,7 +213,7 @@ class CheckoutServiceImplTest {
         RentalAgreement rentalAgreement = new RentalAgreement();
         // Populate rentalAgreement with expected values
 
-        when(toolRepository.getById("JAKR")).thenReturn(tool);
+        when(toolCatalog.findTool("JAKR")).thenReturn(tool);
         when(rentalAgreementRepository.save(any(RentalAgreement.class))).thenReturn(rentalAgreement);
 
         // Act
@@ -204,9 +225,9 @@ class CheckoutServiceImplTest {
         assertEquals(4, result.getRentalDays());
         assertEquals(50, result.getDiscountPercent());
         assertEquals(LocalDate.of(2020, 7, 6).format(formatter), result.getDueDate());
-        assertEquals(2.99f, result.getPreDiscountCharge());
-        assertEquals(1.5f, result.getDiscountAmount());
-        assertEquals(1.49f, result.getFinalCharge());
+        assertEquals(299L, result.getPreDiscountCharge());
+        assertEquals(150L, result.getDiscountAmount());
+        assertEquals(149L, result.getFinalCharge());
         verify(rentalAgreementRepository, times(1)).save(any(RentalAgreement.class));
     }
 
@@ -237,7 +258,7 @@ class CheckoutServiceImplTest {
         checkoutDto.setDiscountPercent(10);
         checkoutDto.setCheckoutDate("09/01/2024");
 
-        when(toolRepository.findById("T999")).thenReturn(Optional.empty());
+        when(toolCatalog.findTool("T999")).thenReturn(null);
 
         // Act
         RentalAgreementDto result = checkoutService.checkoutTool(checkoutDto);
@@ -266,7 +287,7 @@ class CheckoutServiceImplTest {
         RentalAgreement rentalAgreement = new RentalAgreement();
         // Populate rentalAgreement with expected values
 
-        when(toolRepository.getById("CHNS")).thenReturn(tool);
+        when(toolCatalog.findTool("CHNS")).thenReturn(tool);
         when(rentalAgreementRepository.save(any(RentalAgreement.class))).thenReturn(rentalAgreement);
 
         // Act
@@ -278,9 +299,9 @@ class CheckoutServiceImplTest {
         assertEquals(5, result.getRentalDays());
         assertEquals(25, result.getDiscountPercent());
         assertEquals(LocalDate.of(2015, 7, 7).format(formatter), result.getDueDate());
-        assertEquals(4.47f, result.getPreDiscountCharge());
-        assertEquals(1.12f, result.getDiscountAmount());
-        assertEquals(3.35f, result.getFinalCharge());
+        assertEquals(447L, result.getPreDiscountCharge());
+        assertEquals(112L, result.getDiscountAmount());
+        assertEquals(335L, result.getFinalCharge());
         verify(rentalAgreementRepository, times(1)).save(any(RentalAgreement.class));
     }
 
@@ -304,7 +325,7 @@ class CheckoutServiceImplTest {
         RentalAgreement rentalAgreement = new RentalAgreement();
         // Populate rentalAgreement with expected values
 
-        when(toolRepository.getById("LADW")).thenReturn(tool);
+        when(toolCatalog.findTool("LADW")).thenReturn(tool);
         when(rentalAgreementRepository.save(any(RentalAgreement.class))).thenReturn(rentalAgreement);
 
         // Act
@@ -316,9 +337,220 @@ class CheckoutServiceImplTest {
         assertEquals(3, result.getRentalDays());
         assertEquals(10, result.getDiscountPercent());
         assertEquals(LocalDate.of(2020, 7, 5).format(formatter), result.getDueDate());
-        assertEquals(3.98f, result.getPreDiscountCharge());
-        assertEquals(0.4f, result.getDiscountAmount());
-        assertEquals(3.58f, result.getFinalCharge());
+        assertEquals(398L, result.getPreDiscountCharge());
+        assertEquals(40L, result.getDiscountAmount());
+        assertEquals(358L, result.getFinalCharge());
         verify(rentalAgreementRepository, times(1)).save(any(RentalAgreement.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCheckoutToolForNewToolTypeUsesChargeFlags() {
+        // Arrange
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setToolCode("GENH");
+        checkoutDto.setRentalDays(4);
+        checkoutDto.setDiscountPercent(0);
+        checkoutDto.setCheckoutDate("07/02/2020");
+
+        Tool tool = new Tool();
+        tool.setToolCode("GENH");
+        tool.setToolType("Generator");
+        tool.setBrand("Honda");
+        tool.setDailyCharge(1.00f);
+        tool.setWeekdayCharge("Yes");
+        tool.setWeekendCharge("Yes");
+        tool.setHolidayCharge("Yes");
+
+        when(toolCatalog.findTool("GENH")).thenReturn(tool);
+        when(rentalAgreementRepository.save(any(RentalAgreement.class))).thenReturn(new RentalAgreement());
+
+        // Act
+        RentalAgreementDto result = checkoutService.checkoutTool(checkoutDto);
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(4, result.getChargeDays());
+        assertEquals(400L, result.getPreDiscountCharge());
+    }
+
+    @Test
+    public void testQuoteToolIsCachedAndNotSaved() {
+        // Arrange
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setToolCode("JAKR");
+        checkoutDto.setRentalDays(3);
+        checkoutDto.setDiscountPercent(25);
+        checkoutDto.setCheckoutDate("09/04/2024");
+
+        Tool tool = new Tool();
+        tool.setToolCode("JAKR");
+        tool.setToolType("Jackhammer");
+        tool.setBrand("Ridgid");
+        tool.setDailyCharge(2.99f);
+        tool.setWeekdayCharge("Yes");
+        tool.setWeekendCharge("No");
+        tool.setHolidayCharge("No");
+
+        when(toolCatalog.findTool("JAKR")).thenReturn(tool);
+
+        // Act
+        RentalAgreementDto first = checkoutService.quoteTool(checkoutDto);
+        RentalAgreementDto second = checkoutService.quoteTool(checkoutDto);
+
+        // Assert
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(448L, first.getFinalCharge());
+        assertEquals("Quote Successful", first.getProcessResult().getMessage());
+        verify(toolCatalog, times(1)).findTool("JAKR");
+        verify(rentalAgreementRepository, never()).save(any(RentalAgreement.class));
+        verify(revenueAggregator, never()).record(any(), any());
+    }
+
+    @Test
+    public void testCheckoutToolsLooksUpToolsOnceAndReportsPerItem() {
+        // Arrange
+        CheckoutDto valid = new CheckoutDto();
+        valid.setToolCode("LADW");
+        valid.setRentalDays(3);
+        valid.setDiscountPercent(10);
+        valid.setCheckoutDate("07/02/2020");
+
+        CheckoutDto invalidDiscount = new CheckoutDto();
+        invalidDiscount.setToolCode("LADW");
+        invalidDiscount.setRentalDays(3);
+        invalidDiscount.setDiscountPercent(101);
+        invalidDiscount.setCheckoutDate("07/02/2020");
+
+        CheckoutDto unknownTool = new CheckoutDto();
+        unknownTool.setToolCode("T999");
+        unknownTool.setRentalDays(3);
+        unknownTool.setDiscountPercent(10);
+        unknownTool.setCheckoutDate("07/02/2020");
+
+        Tool tool = new Tool();
+        tool.setToolCode("LADW");
+        tool.setToolType("Ladder");
+        tool.setBrand("Werner");
+        tool.setDailyCharge(1.99f);
+        tool.setWeekdayCharge("Yes");
+        tool.setWeekendCharge("Yes");
+        tool.setHolidayCharge("No");
+
+        when(toolCatalog.findTools(anyCollection())).thenReturn(Map.of("LADW", tool));
+
+        // Act
+        List<RentalAgreementDto> results = checkoutService.checkoutTools(List.of(valid, invalidDiscount, unknownTool));
+
+        // Assert
+        assertEquals(3, results.size());
+        assertEquals("Ok", results.get(0).getProcessResult().getStatus());
+        assertEquals(358L, results.get(0).getFinalCharge());
+        assertEquals("Percentage should be between 0 to 100", results.get(1).getProcessResult().getMessage());
+        assertEquals("Tool not found", results.get(2).getProcessResult().getMessage());
+        verify(toolCatalog, times(1)).findTools(anyCollection());
+        verify(rentalAgreementRepository, times(1)).saveAll(anyList());
+        verify(entityManager, times(1)).flush();
+    }
+
+    @Test
+    public void testCheckoutToolOutOfStockIsNotSaved() {
+        // Arrange
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setToolCode("LADW");
+        checkoutDto.setRentalDays(3);
+        checkoutDto.setDiscountPercent(10);
+        checkoutDto.setCheckoutDate("07/02/2020");
+
+        Tool tool = new Tool();
+        tool.setToolCode("LADW");
+        tool.setToolType("Ladder");
+        tool.setBrand("Werner");
+        tool.setDailyCharge(1.99f);
+        tool.setWeekdayCharge("Yes");
+        tool.setWeekendCharge("Yes");
+        tool.setHolidayCharge("No");
+        tool.setUnits(1);
+
+        when(toolCatalog.findTool("LADW")).thenReturn(tool);
+        when(toolInventory.reserve(tool, LocalDate.of(2020, 7, 2), LocalDate.of(2020, 7, 5))).thenReturn(null);
+
+        // Act
+        RentalAgreementDto result = checkoutService.checkoutTool(checkoutDto);
+
+        // Assert
+        assertEquals("Error", result.getProcessResult().getStatus());
+        assertEquals("Tool out of stock", result.getProcessResult().getMessage());
+        verify(rentalAgreementRepository, never()).save(any(RentalAgreement.class));
+        verify(revenueAggregator, never()).record(any(), any());
+    }
+
+    @Test
+    public void testCheckoutToolReleasesUnitWhenSaveFails() {
+        // Arrange
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setToolCode("LADW");
+        checkoutDto.setRentalDays(3);
+        checkoutDto.setDiscountPercent(10);
+        checkoutDto.setCheckoutDate("07/02/2020");
+
+        Tool tool = new Tool();
+        tool.setToolCode("LADW");
+        tool.setToolType("Ladder");
+        tool.setBrand("Werner");
+        tool.setDailyCharge(1.99f);
+        tool.setWeekdayCharge("Yes");
+        tool.setWeekendCharge("Yes");
+        tool.setHolidayCharge("No");
+        tool.setUnits(1);
+
+        ToolInventory.Reservation reservation = mock(ToolInventory.Reservation.class);
+        when(toolCatalog.findTool("LADW")).thenReturn(tool);
+        when(toolInventory.reserve(tool, LocalDate.of(2020, 7, 2), LocalDate.of(2020, 7, 5))).thenReturn(reservation);
+        when(rentalAgreementRepository.save(any(RentalAgreement.class))).thenThrow(new IllegalStateException("database down"));
+
+        // Act
+        RentalAgreementDto result = checkoutService.checkoutTool(checkoutDto);
+
+        // Assert
+        assertNull(result);
+        verify(reservation, times(1)).release();
+        verify(revenueAggregator, never()).record(any(), any());
+    }
+
+    @Test
+    public void testQuoteToolIsRepricedAfterTheToolChanges() {
+        // Arrange
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setToolCode("JAKR");
+        checkoutDto.setRentalDays(3);
+        checkoutDto.setDiscountPercent(25);
+        checkoutDto.setCheckoutDate("09/04/2024");
+
+        Tool tool = new Tool();
+        tool.setToolCode("JAKR");
+        tool.setToolType("Jackhammer");
+        tool.setBrand("Ridgid");
+        tool.setDailyCharge(2.99f);
+        tool.setWeekdayCharge("Yes");
+        tool.setWeekendCharge("No");
+        tool.setHolidayCharge("No");
+        Tool repriced = Tool.builder().toolCode("JAKR").toolType("Jackhammer").brand("Ridgid").dailyCharge(3.99f)
+                .weekdayCharge("Yes").weekendCharge("No").holidayCharge("No").build();
+
+        when(toolCatalog.findTool("JAKR")).thenReturn(tool, repriced);
+
+        // Act
+        RentalAgreementDto before = checkoutService.quoteTool(checkoutDto);
+        checkoutService.onToolCatalogChanged(new ToolCatalog.ChangedEvent(Set.of("LADW")));
+        RentalAgreementDto unrelatedChange = checkoutService.quoteTool(checkoutDto);
+        checkoutService.onToolCatalogChanged(new ToolCatalog.ChangedEvent(Set.of("JAKR")));
+        RentalAgreementDto after = checkoutService.quoteTool(checkoutDto);
+
+        // Assert
+        assertSame(before, unrelatedChange);
+        assertEquals(299L, before.getDailyRentalCharge());
+        assertEquals(399L, after.getDailyRentalCharge());
+        verify(toolCatalog, times(2)).findTool("JAKR");
+    }
+}
@@ -0,0 +1,131 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.dto.CheckoutDto;
+import com.tools.point.of.sale.dto.ProcessResult;
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreImplTest {
+
+    private final IdempotencyStoreImpl idempotencyStore = new IdempotencyStoreImpl();
+
+    private static CheckoutDto checkoutDto(int rentalDays) {
+        return new CheckoutDto("JAKR", rentalDays, 25, "09/04/2024");
+    }
+
+    private static RentalAgreementDto agreement() {
+        return RentalAgreementDto.builder().toolCode("JAKR")
+                .processResult(ProcessResult.builder().status("Ok").message("Checkout Successful").build()).build();
+    }
+
+    @Test
+    public void testRetryReturnsStoredResultWithoutCheckingOutAgain() {
+        AtomicInteger checkouts = new AtomicInteger();
+
+        RentalAgreementDto first = idempotencyStore.checkout("key-1", checkoutDto(3), () -> {
+            checkouts.incrementAndGet();
+            return agreement();
+        });
+        RentalAgreementDto retry = idempotencyStore.checkout("key-1", checkoutDto(3), () -> {
+            checkouts.incrementAndGet();
+            return agreement();
+        });
+
+        assertSame(first, retry);
+        assertEquals(1, checkouts.get());
+    }
+
+    @Test
+    public void testKeyReusedForDifferentCheckoutIsRejected() {
+        idempotencyStore.checkout("key-1", checkoutDto(3), IdempotencyStoreImplTest::agreement);
+
+        RentalAgreementDto result = idempotencyStore.checkout("key-1", checkoutDto(4), IdempotencyStoreImplTest::agreement);
+
+        assertEquals("Error", result.getProcessResult().getStatus());
+    }
+
+    @Test
+    public void testFailedCheckoutIsNotRemembered() {
+        assertNull(idempotencyStore.checkout("key-1", checkoutDto(3), () -> null));
+
+        RentalAgreementDto retry = idempotencyStore.checkout("key-1", checkoutDto(3), IdempotencyStoreImplTest::agreement);
+
+        assertEquals("Ok", retry.getProcessResult().getStatus());
+    }
+
+    @Test
+    public void testInFlightDuplicatesWaitForTheFirstResult() throws Exception {
+        AtomicInteger checkouts = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Future<RentalAgreementDto>[] results = new Future[4];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = executor.submit(() -> {
+                started.countDown();
+                return idempotencyStore.checkout("key-1", checkoutDto(3), () -> {
+                    checkouts.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return agreement();
+                });
+            });
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        release.countDown();
+
+        RentalAgreementDto first = results[0].get(10, TimeUnit.SECONDS);
+        for (Future<RentalAgreementDto> result : results) {
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, checkouts.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testRunningCheckoutIsNotEvictedByLaterKeys() throws Exception {
+        idempotencyStore.configure(1, Duration.ofHours(24));
+        AtomicInteger checkouts = new AtomicInteger();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<RentalAgreementDto> first = executor.submit(() -> idempotencyStore.checkout("key-1", checkoutDto(3), () -> {
+            checkouts.incrementAndGet();
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return agreement();
+        }));
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        // more keys than the store holds arrive while key-1 is still being checked out
+        idempotencyStore.checkout("key-2", checkoutDto(3), IdempotencyStoreImplTest::agreement);
+        idempotencyStore.checkout("key-3", checkoutDto(3), IdempotencyStoreImplTest::agreement);
+        release.countDown();
+        RentalAgreementDto retry = idempotencyStore.checkout("key-1", checkoutDto(3), () -> {
+            checkouts.incrementAndGet();
+            return agreement();
+        });
+
+        assertSame(first.get(10, TimeUnit.SECONDS), retry);
+        assertEquals(1, checkouts.get());
+        executor.shutdown();
+    }
+}
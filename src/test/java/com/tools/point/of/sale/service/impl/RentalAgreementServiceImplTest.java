@@ -0,0 +1,148 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tools.point.of.sale.repository.RentalAgreementRepository;
+import com.tools.point.of.sale.repository.RentalAgreementSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class RentalAgreementServiceImplTest {
+    @Mock
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private RentalAgreementServiceImpl rentalAgreementService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static ResultSet agreementRow(long id, String toolBrand) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(id);
+        when(rs.getString(2)).thenReturn("LADW");
+        when(rs.getString(3)).thenReturn("Ladder");
+        when(rs.getString(4)).thenReturn(toolBrand);
+        when(rs.getInt(5)).thenReturn(3);
+        when(rs.getObject(6, LocalDate.class)).thenReturn(LocalDate.of(2020, 7, 2));
+        when(rs.getObject(7, LocalDate.class)).thenReturn(LocalDate.of(2020, 7, 5));
+        when(rs.getLong(8)).thenReturn(199L);
+        when(rs.getInt(9)).thenReturn(2);
+        when(rs.getLong(10)).thenReturn(398L);
+        when(rs.getInt(11)).thenReturn(10);
+        when(rs.getLong(12)).thenReturn(40L);
+        when(rs.getLong(13)).thenReturn(358L);
+        return rs;
+    }
+
+    private void stubPages(ResultSet[]... pages) {
+        int[] call = {0};
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : pages[call[0]++]) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    public void testExportCsvQuotesText() throws Exception {
+        // Arrange
+        stubPages(new ResultSet[]{agreementRow(1, "Werner"), agreementRow(2, "Werner, \"Pro\"")});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        rentalAgreementService.exportAgreements("csv", out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,toolCode,toolType,toolBrand,rentalDays,checkOutDate,dueDate,dailyRentalCharge,chargeDays,"
+                + "preDiscountCharge,discountPercent,discountAmount,finalCharge", lines[0]);
+        assertEquals("1,LADW,Ladder,Werner,3,07/02/2020,07/05/2020,1.99,2,3.98,10,0.40,3.58", lines[1]);
+        assertEquals("2,LADW,Ladder,\"Werner, \"\"Pro\"\"\",3,07/02/2020,07/05/2020,1.99,2,3.98,10,0.40,3.58", lines[2]);
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    public void testExportNdjsonReadsKeysetPagesUntilAShortPage() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(rentalAgreementService, "pageSize", 2);
+        stubPages(new ResultSet[]{agreementRow(1, "Werner"), agreementRow(2, "Werner")},
+                new ResultSet[]{agreementRow(3, "Werner")});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        rentalAgreementService.exportAgreements("ndjson", out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"id\":3,\"toolCode\":\"LADW\",\"toolType\":\"Ladder\",\"toolBrand\":\"Werner\",\"rentalDays\":3,"
+                + "\"checkOutDate\":\"07/02/2020\",\"dueDate\":\"07/05/2020\",\"dailyRentalCharge\":1.99,\"chargeDays\":2,"
+                + "\"preDiscountCharge\":3.98,\"discountPercent\":10,\"discountAmount\":0.40,\"finalCharge\":3.58}", lines[2]);
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    public void testFindOpenAgreementsOfToolUsesDueDateRangeAndClampsPageSize() {
+        // Arrange
+        RentalAgreementSummary summary = mock(RentalAgreementSummary.class);
+        LocalDate openOn = LocalDate.of(2020, 7, 4);
+        Pageable expected = PageRequest.of(0, RentalAgreementServiceImpl.MAX_PAGE_SIZE, Sort.by("dueDate", "id"));
+        when(rentalAgreementRepository.findByToolCodeAndDueDateGreaterThanEqual("LADW", openOn, expected))
+                .thenReturn(new SliceImpl<>(List.of(summary)));
+
+        // Act
+        List<RentalAgreementSummary> result = rentalAgreementService.findByTool("LADW", openOn, 0, 10_000);
+
+        // Assert
+        assertEquals(List.of(summary), result);
+        verify(rentalAgreementRepository, never()).findByToolCode(any(), any());
+    }
+
+    @Test
+    public void testFindByCheckOutDateSortsByCheckOutDate() {
+        // Arrange
+        LocalDate from = LocalDate.of(2020, 7, 1);
+        LocalDate to = LocalDate.of(2020, 7, 31);
+        Pageable expected = PageRequest.of(2, 50, Sort.by("checkOutDate", "id"));
+        when(rentalAgreementRepository.findByCheckOutDateBetween(from, to, expected)).thenReturn(new SliceImpl<>(List.of()));
+
+        // Act
+        List<RentalAgreementSummary> result = rentalAgreementService.findByCheckOutDate(from, to, 2, 50);
+
+        // Assert
+        assertEquals(0, result.size());
+        verify(rentalAgreementRepository, times(1)).findByCheckOutDateBetween(from, to, expected);
+    }
+}
@@ -0,0 +1,188 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.tools.point.of.sale.entity.RentalAgreement;
+import com.tools.point.of.sale.repository.RentalAgreementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class RentalAgreementWriteBehindTest {
+    private static final String MERGE_CHECKPOINT = "MERGE INTO write_behind_checkpoint";
+
+    @Mock
+    private RentalAgreementRepository rentalAgreementRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @InjectMocks
+    private RentalAgreementWriteBehind writeBehind;
+
+    @TempDir
+    Path journalDir;
+
+    private Path journalFile;
+    private boolean started;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(writeBehind, "journalDir", journalDir);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 500);
+        ReflectionTestUtils.setField(writeBehind, "compactBytes", 64L * 1024 * 1024);
+        ReflectionTestUtils.setField(writeBehind, "maxAttempts", 1);
+        journalFile = journalDir.resolve("rental-agreements.journal");
+        when(rentalAgreementRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (started) {
+            writeBehind.stop();
+        }
+    }
+
+    private static RentalAgreement rentalAgreement(String toolCode) {
+        return RentalAgreement.builder().toolCode(toolCode).rentalDays(3)
+                .checkOutDate(LocalDate.of(2024, 9, 4)).dueDate(LocalDate.of(2024, 9, 7))
+                .dailyRentalCharge(299).chargeDays(3).preDiscountCharge(897).discountPercent(25)
+                .discountAmount(224).finalCharge(673).build();
+    }
+
+    private String journalLine(long sequence, String toolCode) throws Exception {
+        return objectMapper.writeValueAsString(new RentalAgreementWriteBehind.JournalEntry(sequence, rentalAgreement(toolCode))) + "\n";
+    }
+
+    private void checkpointAt(long sequence) {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("rental-agreements"))).thenReturn(List.of(sequence));
+    }
+
+    private void start() throws Exception {
+        writeBehind.start();
+        started = true;
+    }
+
+    private List<RentalAgreementWriteBehind.JournalEntry> readJournal() throws Exception {
+        List<RentalAgreementWriteBehind.JournalEntry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            entries.add(objectMapper.readValue(line, RentalAgreementWriteBehind.JournalEntry.class));
+        }
+        return entries;
+    }
+
+    @Test
+    public void testAppendIsOnDiskBeforeItReturnsAndIsCheckpointedWhenApplied() throws Exception {
+        // Arrange
+        start();
+
+        // Act
+        writeBehind.append(rentalAgreement("JAKR"));
+
+        // Assert
+        List<RentalAgreementWriteBehind.JournalEntry> entries = readJournal();
+        assertEquals(1, entries.size());
+        assertEquals(1L, entries.get(0).sequence());
+        assertEquals("JAKR", entries.get(0).rentalAgreement().getToolCode());
+        verify(rentalAgreementRepository, timeout(5000)).saveAll(any());
+        verify(jdbcTemplate, timeout(5000)).update(startsWith(MERGE_CHECKPOINT), eq("rental-agreements"), eq(1L));
+    }
+
+    @Test
+    public void testRestartReplaysOnlyEntriesAfterTheCheckpoint() throws Exception {
+        // Arrange
+        Files.writeString(journalFile, journalLine(1, "JAKR") + journalLine(2, "LADW") + journalLine(3, "CHNS"));
+        checkpointAt(1);
+        ArgumentCaptor<Iterable<RentalAgreement>> saved = ArgumentCaptor.forClass(Iterable.class);
+
+        // Act
+        start();
+
+        // Assert
+        verify(jdbcTemplate, timeout(5000)).update(startsWith(MERGE_CHECKPOINT), eq("rental-agreements"), eq(3L));
+        verify(rentalAgreementRepository, atLeastOnce()).saveAll(saved.capture());
+        List<String> toolCodes = new ArrayList<>();
+        saved.getAllValues().forEach(batch -> batch.forEach(rentalAgreement -> toolCodes.add(rentalAgreement.getToolCode())));
+        assertEquals(List.of("LADW", "CHNS"), toolCodes);
+        // new entries continue after the last journaled sequence
+        writeBehind.append(rentalAgreement("JAKD"));
+        assertEquals(4L, readJournal().get(3).sequence());
+    }
+
+    @Test
+    public void testTornTailIsTruncatedBeforeNewEntriesAreAppended() throws Exception {
+        // Arrange
+        String torn = journalLine(3, "CHNS");
+        Files.writeString(journalFile, journalLine(1, "JAKR") + journalLine(2, "LADW") + torn.substring(0, torn.length() / 2));
+        checkpointAt(2);
+
+        // Act
+        start();
+        writeBehind.append(rentalAgreement("JAKD"));
+
+        // Assert
+        List<RentalAgreementWriteBehind.JournalEntry> entries = readJournal();
+        assertEquals(3, entries.size());
+        assertEquals(3L, entries.get(2).sequence());
+        assertEquals("JAKD", entries.get(2).rentalAgreement().getToolCode());
+    }
+
+    @Test
+    public void testFailingEntryIsDeadLetteredAndLaterEntriesAreApplied() throws Exception {
+        // Arrange
+        Files.writeString(journalFile, journalLine(1, "JAKR") + journalLine(2, "BAD") + journalLine(3, "CHNS"));
+        checkpointAt(0);
+        when(rentalAgreementRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<RentalAgreement> batch = invocation.getArgument(0);
+            for (RentalAgreement rentalAgreement : batch) {
+                if ("BAD".equals(rentalAgreement.getToolCode())) {
+                    throw new DataIntegrityViolationException("constraint violation");
+                }
+            }
+            return batch;
+        });
+
+        // Act
+        start();
+
+        // Assert
+        verify(jdbcTemplate, timeout(5000)).update(startsWith(MERGE_CHECKPOINT), eq("rental-agreements"), eq(3L));
+        List<String> deadLetters = Files.readAllLines(journalDir.resolve("rental-agreements.dead-letter"), StandardCharsets.UTF_8);
+        assertEquals(1, deadLetters.size());
+        RentalAgreementWriteBehind.DeadLetter deadLetter = objectMapper.readValue(deadLetters.get(0), RentalAgreementWriteBehind.DeadLetter.class);
+        assertEquals(2L, deadLetter.sequence());
+        assertEquals("BAD", deadLetter.rentalAgreement().getToolCode());
+        assertEquals("constraint violation", deadLetter.error());
+    }
+}
@@ -0,0 +1,191 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+import com.tools.point.of.sale.dto.RevenueStatsDto;
+import com.tools.point.of.sale.entity.RentalAgreement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RevenueAggregatorImplTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private RevenueAggregatorImpl revenueAggregator;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static RentalAgreementDto checkout(String toolCode, String toolType, int chargeDays, long preDiscount, long discount) {
+        return RentalAgreementDto.builder().toolCode(toolCode).toolType(toolType).chargeDays(chargeDays)
+                .preDiscountCharge(preDiscount).discountAmount(discount).finalCharge(preDiscount - discount).build();
+    }
+
+    private static RentalAgreement agreement(Long id, LocalDate checkoutDate) {
+        return RentalAgreement.builder().id(id).checkOutDate(checkoutDate).build();
+    }
+
+    /**
+     * @return An aggregator on a new H2 database holding the tool and rental_agreement tables.
+     */
+    private static RevenueAggregatorImpl aggregatorOn(DriverManagerDataSource dataSource) {
+        RevenueAggregatorImpl aggregator = new RevenueAggregatorImpl();
+        ReflectionTestUtils.setField(aggregator, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(aggregator, "transactionManager", new DataSourceTransactionManager(dataSource));
+        aggregator.load();
+        return aggregator;
+    }
+
+    private static void insertAgreement(JdbcTemplate jdbc, long id, String toolCode, LocalDate checkoutDate, long finalCharge) {
+        jdbc.update("INSERT INTO rental_agreement (id, tool_code, check_out_date, charge_days, pre_discount_charge_cents, "
+                + "discount_amount_cents, final_charge_cents) VALUES (?, ?, ?, 1, ?, 0, ?)", id, toolCode, checkoutDate, finalCharge, finalCharge);
+    }
+
+    @Test
+    public void testRecordUpdatesAllDimensions() {
+        // Act
+        revenueAggregator.record(checkout("JAKR", "Jackhammer", 2, 598, 150), agreement(null, LocalDate.of(2024, 9, 4)));
+        revenueAggregator.record(checkout("JAKD", "Jackhammer", 3, 897, 0), agreement(null, LocalDate.of(2024, 9, 4)));
+        revenueAggregator.record(checkout("LADW", "Ladder", 2, 398, 40), agreement(null, LocalDate.of(2024, 9, 5)));
+
+        // Assert
+        RevenueStatsDto stats = revenueAggregator.getStats();
+        assertEquals(3, stats.getTotal().getAgreements());
+        assertEquals(7, stats.getTotal().getChargeDays());
+        assertEquals(1703, stats.getTotal().getFinalCharge());
+        assertEquals(2, stats.getByToolType().get("Jackhammer").getAgreements());
+        assertEquals(150, stats.getByToolType().get("Jackhammer").getDiscountAmount());
+        assertEquals(1345, stats.getByDay().get(LocalDate.of(2024, 9, 4)).getFinalCharge());
+        assertEquals(358, revenueAggregator.getToolStats("LADW").getFinalCharge());
+        assertNull(revenueAggregator.getToolStats("CHNS"));
+    }
+
+    @Test
+    public void testConcurrentRecordsAreNotLost() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        for (int i = 0; i < 8_000; i++) {
+            executor.execute(() -> revenueAggregator.record(checkout("JAKR", "Jackhammer", 1, 299, 0), agreement(null, LocalDate.of(2024, 9, 4))));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(8_000, revenueAggregator.getStats().getTotal().getAgreements());
+        assertEquals(8_000L * 299, revenueAggregator.getToolStats("JAKR").getPreDiscountCharge());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCheckpointWritesOnlyChangedTotals() {
+        // Arrange
+        revenueAggregator.record(checkout("JAKR", "Jackhammer", 2, 598, 150), agreement(null, LocalDate.of(2024, 9, 4)));
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+
+        // Act
+        revenueAggregator.checkpoint();
+        revenueAggregator.checkpoint();
+
+        // Assert
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(4, rows.getValue().size());
+    }
+
+    @Test
+    public void testStatsHoldOnlyTheLatestDays() {
+        // Arrange
+        revenueAggregator.configureStats(Duration.ZERO, 2);
+        revenueAggregator.record(checkout("JAKR", "Jackhammer", 1, 299, 0), agreement(null, LocalDate.of(2024, 9, 3)));
+        revenueAggregator.record(checkout("JAKR", "Jackhammer", 1, 299, 0), agreement(null, LocalDate.of(2024, 9, 5)));
+        revenueAggregator.record(checkout("JAKR", "Jackhammer", 1, 299, 0), agreement(null, LocalDate.of(2024, 9, 4)));
+
+        // Act
+        RevenueStatsDto stats = revenueAggregator.getStats();
+
+        // Assert
+        assertEquals(List.of(LocalDate.of(2024, 9, 4), LocalDate.of(2024, 9, 5)), List.copyOf(stats.getByDay().keySet()));
+        assertEquals(3, stats.getTotal().getAgreements());
+    }
+
+    @Test
+    public void testStatsSnapshotIsReusedUntilItIsRefreshed() {
+        // Arrange
+        revenueAggregator.configureStats(Duration.ofHours(1), 366);
+        revenueAggregator.record(checkout("JAKR", "Jackhammer", 1, 299, 0), agreement(null, LocalDate.of(2024, 9, 4)));
+        RevenueStatsDto first = revenueAggregator.getStats();
+
+        // Act
+        revenueAggregator.record(checkout("JAKR", "Jackhammer", 1, 299, 0), agreement(null, LocalDate.of(2024, 9, 4)));
+
+        // Assert
+        assertSame(first, revenueAggregator.getStats());
+        assertEquals(2, revenueAggregator.getToolStats("JAKR").getAgreements());
+        revenueAggregator.configureStats(Duration.ZERO, 366);
+        assertEquals(2, revenueAggregator.getStats().getTotal().getAgreements());
+    }
+
+    @Test
+    public void testAgreementsAfterTheCheckpointAreAddedOnStartup() {
+        // Arrange
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE tool (tool_code VARCHAR(255) PRIMARY KEY, tool_type VARCHAR(255))");
+        jdbc.execute("CREATE TABLE rental_agreement (id BIGINT PRIMARY KEY, tool_code VARCHAR(255), check_out_date DATE, "
+                + "charge_days INTEGER, pre_discount_charge_cents BIGINT, discount_amount_cents BIGINT, final_charge_cents BIGINT)");
+        jdbc.update("INSERT INTO tool VALUES ('JAKR', 'Jackhammer'), ('LADW', 'Ladder')");
+        try {
+            RevenueAggregatorImpl before = aggregatorOn(dataSource);
+            insertAgreement(jdbc, 1, "JAKR", LocalDate.of(2024, 9, 4), 299);
+            before.record(checkout("JAKR", "Jackhammer", 1, 299, 0), agreement(1L, LocalDate.of(2024, 9, 4)));
+            before.checkpoint();
+            // checked out after the last checkpoint, then the process crashed
+            insertAgreement(jdbc, 2, "LADW", LocalDate.of(2024, 9, 5), 199);
+            insertAgreement(jdbc, 3, "JAKR", LocalDate.of(2024, 9, 5), 299);
+
+            // Act
+            RevenueAggregatorImpl after = aggregatorOn(dataSource);
+
+            // Assert
+            RevenueStatsDto stats = after.getStats();
+            assertEquals(3, stats.getTotal().getAgreements());
+            assertEquals(797, stats.getTotal().getFinalCharge());
+            assertEquals(2, after.getToolStats("JAKR").getAgreements());
+            assertEquals(199, stats.getByToolType().get("Ladder").getFinalCharge());
+            assertEquals(498, stats.getByDay().get(LocalDate.of(2024, 9, 5)).getFinalCharge());
+            // the caught-up totals and watermark are checkpointed
+            after.checkpoint();
+            assertEquals(3L, jdbc.queryForObject("SELECT applied_agreement_id FROM revenue_checkpoint", Long.class));
+            assertEquals(3, aggregatorOn(dataSource).getStats().getTotal().getAgreements());
+        } finally {
+            jdbc.execute("SHUTDOWN");
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.entity.Tool;
+import com.tools.point.of.sale.repository.ToolRepository;
+import com.tools.point.of.sale.service.ToolCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ToolCatalogImplTest {
+    @Mock
+    private ToolRepository toolRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ToolCatalogImpl toolCatalog;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static Tool tool(String toolCode, float dailyCharge) {
+        return Tool.builder().toolCode(toolCode).toolType("Ladder").brand("Werner").dailyCharge(dailyCharge)
+                .weekdayCharge("Yes").weekendCharge("Yes").holidayCharge("No").build();
+    }
+
+    @Test
+    public void testLookupsAfterReloadDoNotHitTheRepository() {
+        // Arrange
+        Tool ladder = tool("LADW", 1.99f);
+        when(toolRepository.findAll()).thenReturn(List.of(ladder));
+        toolCatalog.reload();
+
+        // Act
+        Tool found = toolCatalog.findTool("LADW");
+        Map<String, Tool> tools = toolCatalog.findTools(Set.of("LADW"));
+
+        // Assert
+        assertEquals(ladder, found);
+        assertNotSame(ladder, found);
+        assertSame(found, tools.get("LADW"));
+        verify(toolRepository, never()).findById(any());
+        verify(toolRepository, never()).findAllById(any());
+    }
+
+    @Test
+    public void testMissIsLoadedOnceAndUnknownToolIsNull() {
+        // Arrange
+        Tool chainsaw = tool("CHNS", 1.49f);
+        when(toolRepository.findById("CHNS")).thenReturn(Optional.of(chainsaw));
+        when(toolRepository.findById("T999")).thenReturn(Optional.empty());
+
+        // Act
+        Tool first = toolCatalog.findTool("CHNS");
+        Tool second = toolCatalog.findTool("CHNS");
+
+        // Assert
+        assertEquals(chainsaw, first);
+        assertSame(first, second);
+        assertNull(toolCatalog.findTool("T999"));
+        verify(toolRepository, times(1)).findById("CHNS");
+    }
+
+    @Test
+    public void testUnknownToolIsLookedUpOnceUntilItIsPublished() {
+        // Arrange
+        when(toolRepository.findById("T999")).thenReturn(Optional.empty());
+        when(toolRepository.findAllById(any())).thenReturn(List.of());
+
+        // Act
+        Tool first = toolCatalog.findTool("T999");
+        Tool second = toolCatalog.findTool("T999");
+        Map<String, Tool> tools = toolCatalog.findTools(Set.of("T999"));
+        toolCatalog.publish(List.of(tool("T999", 3.49f)));
+        Tool published = toolCatalog.findTool("T999");
+
+        // Assert
+        assertNull(first);
+        assertNull(second);
+        assertTrue(tools.isEmpty());
+        assertEquals(3.49f, published.getDailyCharge());
+        verify(toolRepository, times(1)).findById("T999");
+        verify(toolRepository, never()).findAllById(any());
+    }
+
+    @Test
+    public void testChangesToTheEntityDoNotReachTheCatalog() {
+        // Arrange
+        Tool ladder = tool("LADW", 1.99f);
+        when(toolRepository.findAll()).thenReturn(List.of(ladder));
+        toolCatalog.reload();
+
+        // Act
+        ladder.setDailyCharge(9.99f);
+        ladder.setWeekendCharge("No");
+
+        // Assert
+        Tool found = toolCatalog.findTool("LADW");
+        assertEquals(1.99f, found.getDailyCharge());
+        assertEquals("Yes", found.getWeekendCharge());
+    }
+
+    @Test
+    public void testPublishReplacesTheSnapshotEntry() {
+        // Arrange
+        when(toolRepository.findAll()).thenReturn(List.of(tool("LADW", 1.99f)));
+        toolCatalog.reload();
+        Tool updated = tool("LADW", 2.49f);
+
+        // Act
+        toolCatalog.publish(List.of(updated));
+
+        // Assert
+        assertEquals(updated, toolCatalog.findTool("LADW"));
+        verify(eventPublisher).publishEvent(new ToolCatalog.ChangedEvent(null));
+        verify(eventPublisher).publishEvent(new ToolCatalog.ChangedEvent(Set.of("LADW")));
+    }
+}
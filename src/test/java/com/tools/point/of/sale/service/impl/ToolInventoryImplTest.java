@@ -0,0 +1,192 @@
+package com.tools.point.of.sale.service.impl;
+
+import com.tools.point.of.sale.entity.Tool;
+import com.tools.point.of.sale.service.ToolInventory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolInventoryImplTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 9, 4);
+
+    private ToolInventoryImpl toolInventory;
+
+    @BeforeEach
+    public void setUp() {
+        toolInventory = new ToolInventoryImpl();
+        toolInventory.setClock(clockAt(TODAY));
+    }
+
+    private static Clock clockAt(LocalDate date) {
+        return Clock.fixed(date.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    private static Tool tool(String toolCode, Integer units) {
+        return Tool.builder().toolCode(toolCode).toolType("Ladder").brand("Werner").dailyCharge(1.99f)
+                .weekdayCharge("Yes").weekendCharge("Yes").holidayCharge("No").units(units).build();
+    }
+
+    @Test
+    public void testUntrackedToolIsAlwaysAvailable() {
+        Tool ladder = tool("LADW", null);
+
+        for (int i = 0; i < 100; i++) {
+            assertSame(ToolInventory.Reservation.NONE, toolInventory.reserve(ladder, TODAY, TODAY.plusDays(3)));
+        }
+        assertNull(toolInventory.getAvailableUnits(ladder));
+    }
+
+    @Test
+    public void testReserveStopsAtUnitsAndReleaseGivesUnitBackOnce() {
+        Tool ladder = tool("LADW", 2);
+
+        ToolInventory.Reservation first = toolInventory.reserve(ladder, TODAY, TODAY.plusDays(3));
+        ToolInventory.Reservation second = toolInventory.reserve(ladder, TODAY, TODAY.plusDays(5));
+        ToolInventory.Reservation third = toolInventory.reserve(ladder, TODAY, TODAY.plusDays(5));
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(third);
+        assertEquals(0, toolInventory.getAvailableUnits(ladder));
+
+        first.release();
+        first.release();
+
+        assertEquals(1, toolInventory.getAvailableUnits(ladder));
+    }
+
+    @Test
+    public void testUnitsComeBackOnTheirDueDate() {
+        Tool ladder = tool("LADW", 2);
+        toolInventory.reserve(ladder, TODAY, TODAY.plusDays(3));
+        ToolInventory.Reservation later = toolInventory.reserve(ladder, TODAY, TODAY.plusDays(5));
+
+        toolInventory.setClock(clockAt(TODAY.plusDays(3)));
+        toolInventory.releaseReturned();
+
+        assertEquals(1, toolInventory.getAvailableUnits(ladder));
+
+        toolInventory.setClock(clockAt(TODAY.plusDays(5)));
+        toolInventory.releaseReturned();
+        // releasing a unit that already came back has no effect
+        later.release();
+
+        assertEquals(2, toolInventory.getAvailableUnits(ladder));
+    }
+
+    @Test
+    public void testAgreementAlreadyDueHoldsNoUnit() {
+        Tool ladder = tool("LADW", 1);
+
+        assertSame(ToolInventory.Reservation.NONE, toolInventory.reserve(ladder, TODAY, TODAY));
+        assertEquals(1, toolInventory.getAvailableUnits(ladder));
+    }
+
+    @Test
+    public void testConcurrentCheckoutsNeverOverAllocate() throws Exception {
+        // Arrange
+        int threads = 16;
+        int attemptsPerThread = 20_000;
+        List<Tool> tools = List.of(tool("LADW", 50), tool("CHNS", 7), tool("JAKD", 1), tool("JAKR", 200));
+        ConcurrentLinkedQueue<ToolInventory.Reservation> held = new ConcurrentLinkedQueue<>();
+        AtomicInteger reservations = new AtomicInteger();
+        AtomicInteger releases = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act: every thread reserves random tools and gives some units back, checking the bound as it goes
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    Tool tool = tools.get(random.nextInt(tools.size()));
+                    ToolInventory.Reservation reservation = toolInventory.reserve(tool, TODAY, TODAY.plusDays(1 + random.nextInt(10)));
+                    if (reservation != null) {
+                        reservations.incrementAndGet();
+                        held.add(reservation);
+                    }
+                    if (random.nextInt(3) == 0) {
+                        ToolInventory.Reservation returned = held.poll();
+                        if (returned != null) {
+                            returned.release();
+                            releases.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert: the units still held are exactly the reservations not released, and within stock
+        int totalUnits = tools.stream().mapToInt(Tool::getUnits).sum();
+        int checkedOut = tools.stream().mapToInt(tool -> tool.getUnits() - toolInventory.getAvailableUnits(tool)).sum();
+        assertEquals(reservations.get() - releases.get(), held.size());
+        assertEquals(held.size(), checkedOut);
+        assertTrue(checkedOut <= totalUnits);
+
+        // and once every unit is back, the full stock can be reserved again but not more
+        held.forEach(ToolInventory.Reservation::release);
+        for (Tool tool : tools) {
+            for (int i = 0; i < tool.getUnits(); i++) {
+                assertNotNull(toolInventory.reserve(tool, TODAY, TODAY.plusDays(1)));
+            }
+            assertNull(toolInventory.reserve(tool, TODAY, TODAY.plusDays(1)));
+        }
+    }
+
+    @Test
+    public void testFutureCheckoutHoldsAUnitOnlyDuringItsRental() {
+        Tool ladder = tool("LADW", 1);
+
+        ToolInventory.Reservation booked = toolInventory.reserve(ladder, TODAY.plusDays(10), TODAY.plusDays(13));
+
+        assertNotNull(booked);
+        assertEquals(1, toolInventory.getAvailableUnits(ladder));
+        // rentals ending on or before the booking starts, or starting when it ends, still fit
+        assertNotNull(toolInventory.reserve(ladder, TODAY, TODAY.plusDays(10)));
+        assertNotNull(toolInventory.reserve(ladder, TODAY.plusDays(13), TODAY.plusDays(15)));
+        // but a rental overlapping it does not
+        assertNull(toolInventory.reserve(ladder, TODAY.plusDays(12), TODAY.plusDays(14)));
+
+        toolInventory.setClock(clockAt(TODAY.plusDays(10)));
+        toolInventory.releaseReturned();
+        assertEquals(0, toolInventory.getAvailableUnits(ladder));
+        booked.release();
+        assertEquals(1, toolInventory.getAvailableUnits(ladder));
+        assertNotNull(toolInventory.reserve(ladder, TODAY.plusDays(11), TODAY.plusDays(13)));
+    }
+
+    @Test
+    public void testBackDatedCheckoutHoldsAUnitUntilItIsDue() {
+        Tool ladder = tool("LADW", 1);
+
+        assertNotNull(toolInventory.reserve(ladder, TODAY.minusDays(2), TODAY.plusDays(1)));
+
+        assertEquals(0, toolInventory.getAvailableUnits(ladder));
+        assertNull(toolInventory.reserve(ladder, TODAY, TODAY.plusDays(3)));
+        assertNotNull(toolInventory.reserve(ladder, TODAY.plusDays(1), TODAY.plusDays(3)));
+    }
+}
@@ -1,18 +1,27 @@
 package com.tools.point.of.sale.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tools.point.of.sale.dto.ToolDto;
+import com.tools.point.of.sale.dto.ToolImportResultDto;
 import com.tools.point.of.sale.entity.Tool;
 import com.tools.point.of.sale.repository.ToolRepository;
+import com.tools.point.of.sale.repository.ToolRepositoryCustom.UpsertCounts;
+import com.tools.point.of.sale.service.ToolCatalog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -20,6 +29,15 @@ class ToolSrviceImplTest {
     @Mock
     private ToolRepository toolRepository;
 
+    @Mock
+    private ToolCatalog toolCatalog;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ToolSrviceImpl toolService;
 
@@ -58,6 +76,7 @@ class ToolSrviceImplTest {
         // Assert
         assertEquals("Saved", result);
         verify(toolRepository, times(1)).save(any(Tool.class));
+        verify(toolCatalog, times(1)).publish(List.of(tool));
     }
 
     @Test
@@ -103,13 +122,85 @@ class ToolSrviceImplTest {
                 .weekendCharge(toolDto2.getWeekendCharge())
                 .build();
 
-        when(toolRepository.saveAllAndFlush(anyIterable())).thenReturn(Arrays.asList(tool1, tool2));
+        when(toolRepository.upsertAll(anyCollection())).thenReturn(new UpsertCounts(1, 1, 0));
 
         // Act
         String result = toolService.addTools(toolDtos);
 
         // Assert
         assertEquals("Saved", result);
-        verify(toolRepository, times(1)).saveAllAndFlush(anyIterable());
+        verify(toolRepository, times(1)).upsertAll(Arrays.asList(tool1, tool2));
+        verify(toolRepository, never()).saveAllAndFlush(anyIterable());
+        verify(toolCatalog, times(1)).publish(Arrays.asList(tool1, tool2));
+    }
+
+    @Test
+    public void testUpsertToolsReportsCounts() {
+        // Arrange
+        ToolDto toolDto = new ToolDto();
+        toolDto.setToolCode("LADW");
+        toolDto.setToolType("Ladder");
+        toolDto.setBrand("Werner");
+        toolDto.setDailyCharge(1.99f);
+
+        when(toolRepository.upsertAll(anyCollection())).thenReturn(new UpsertCounts(0, 1, 0));
+
+        // Act
+        ToolImportResultDto result = toolService.upsertTools(List.of(toolDto));
+
+        // Assert
+        assertEquals(1, result.getImported());
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(0, result.getUnchanged());
+        verify(toolCatalog, times(1)).publish(anyList());
+    }
+
+    @Test
+    public void testImportToolsSavesInChunksAndReportsBadLines() {
+        // Arrange
+        when(toolRepository.upsertAll(anyCollection()))
+                .thenAnswer(invocation -> new UpsertCounts(invocation.<List<?>>getArgument(0).size(), 0, 0));
+        StringBuilder feed = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            feed.append("{\"toolCode\":\"T").append(i).append("\",\"toolType\":\"Ladder\",\"brand\":\"Werner\",")
+                    .append("\"dailyCharge\":1.99,\"weekdayCharge\":\"Yes\",\"weekendCharge\":\"Yes\",\"holidayCharge\":\"No\"}\n");
+        }
+        feed.append("{\"toolCode\":\"BAD1\"}\n");
+        feed.append("not json\n");
+
+        // Act
+        ToolImportResultDto result = toolService.importTools(
+                new ByteArrayInputStream(feed.toString().getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals("Ok", result.getProcessResult().getStatus());
+        assertEquals(1200, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(1201, result.getErrors().get(0).getLineNumber());
+        assertEquals("toolType is required", result.getErrors().get(0).getMessage());
+        assertEquals(1202, result.getErrors().get(1).getLineNumber());
+        assertEquals(1200, result.getInserted());
+        verify(toolRepository, times(3)).upsertAll(anyCollection());
+        verify(toolCatalog, times(3)).publish(anyList());
+        verify(toolCatalog, never()).reload();
+    }
+
+    @Test
+    public void testImportToolsReadsJsonArray() {
+        // Arrange
+        when(toolRepository.upsertAll(anyCollection()))
+                .thenAnswer(invocation -> new UpsertCounts(invocation.<List<?>>getArgument(0).size(), 0, 0));
+        String feed = "[\n{\"toolCode\":\"LADW\",\"toolType\":\"Ladder\",\"dailyCharge\":1.99},\n"
+                + "{\"toolCode\":\"CHNS\",\"toolType\":\"Chainsaw\",\"dailyCharge\":\"cheap\"}\n]";
+
+        // Act
+        ToolImportResultDto result = toolService.importTools(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(3, result.getErrors().get(0).getLineNumber());
+        assertTrue(result.getErrors().get(0).getMessage().contains("cheap"));
     }
-}
\ No newline at end of file
+}
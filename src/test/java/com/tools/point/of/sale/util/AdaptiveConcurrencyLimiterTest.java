@@ -0,0 +1,93 @@
+package com.tools.point.of.sale.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private final AtomicLong now = new AtomicLong(1_000 * MILLIS);
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter("checkout", initialLimit, 2, 50, 2.0, 0.5, now::get);
+    }
+
+    private void finishAfter(AdaptiveConcurrencyLimiter.Permit permit, long millis) {
+        now.addAndGet(millis * MILLIS);
+        permit.complete();
+    }
+
+    @Test
+    void testRequestsOverTheLimitAreRejected() {
+        AdaptiveConcurrencyLimiter limiter = limiter(3);
+
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+
+        assertNull(limiter.tryAcquire());
+        permits.get(0).complete();
+        permits.get(0).complete();
+        assertNotNull(limiter.tryAcquire());
+        assertNull(limiter.tryAcquire());
+        assertEquals(4, limiter.getState().accepted());
+        assertEquals(2, limiter.getState().rejected());
+        assertEquals(3, limiter.getState().inFlight());
+    }
+
+    @Test
+    void testSlowRequestsCutTheLimitOncePerLatency() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        finishAfter(limiter.tryAcquire(), 10);
+
+        // two requests queueing downstream at the same time cut the limit once
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.tryAcquire();
+        finishAfter(first, 100);
+        finishAfter(second, 0);
+
+        assertEquals(10, limiter.getState().limit());
+
+        finishAfter(limiter.tryAcquire(), 100);
+        finishAfter(limiter.tryAcquire(), 100);
+        finishAfter(limiter.tryAcquire(), 100);
+
+        assertEquals(2, limiter.getState().limit());
+    }
+
+    @Test
+    void testFastRequestsUsingTheLimitGrowIt() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+        finishAfter(limiter.tryAcquire(), 10);
+
+        for (int round = 0; round < 40; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (AdaptiveConcurrencyLimiter.Permit permit; (permit = limiter.tryAcquire()) != null; ) {
+                permits.add(permit);
+            }
+            now.addAndGet(10 * MILLIS);
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::complete);
+        }
+
+        assertTrue(limiter.getState().limit() > 4);
+        assertTrue(limiter.getState().limit() <= 50);
+    }
+
+    @Test
+    void testIdleLimitDoesNotGrow() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 100; i++) {
+            finishAfter(limiter.tryAcquire(), 10);
+        }
+
+        assertEquals(10, limiter.getState().limit());
+    }
+}
@@ -0,0 +1,90 @@
+package com.tools.point.of.sale.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppendOnlyLogTest {
+
+    @Test
+    void testAppendAcrossSegmentsKeepsOrder() {
+        AppendOnlyLog<Integer> log = new AppendOnlyLog<>();
+
+        for (int i = 0; i < 40_000; i++) {
+            assertEquals(i, log.append(i));
+        }
+        long first = log.appendAll(List.of(-1, -2, -3));
+
+        assertEquals(40_000, first);
+        assertEquals(40_003, log.size());
+        assertEquals(39_999, log.get(39_999));
+        assertEquals(-3, log.get(40_002));
+        List<Integer> snapshot = log.snapshot();
+        assertEquals(40_003, snapshot.size());
+        assertEquals(16_384, snapshot.get(16_384));
+    }
+
+    @Test
+    void testNullEntryIsRejectedWithoutClaimingAnIndex() {
+        AppendOnlyLog<String> log = new AppendOnlyLog<>();
+
+        assertThrows(IllegalArgumentException.class, () -> log.append(null));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(0));
+        assertEquals(0, log.size());
+    }
+
+    @Test
+    void testConcurrentAppendsLoseNothing() throws Exception {
+        // Arrange
+        int threads = 8;
+        int perThread = 50_000;
+        AppendOnlyLog<Integer> log = new AppendOnlyLog<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act: half the threads append one by one, the others in blocks
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Integer> block = new ArrayList<>();
+                for (int i = 0; i < perThread; i++) {
+                    int value = thread * perThread + i;
+                    if (thread % 2 == 0) {
+                        log.append(value);
+                    } else {
+                        block.add(value);
+                        if (block.size() == 100) {
+                            log.appendAll(block);
+                            block.clear();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        List<Integer> snapshot = log.snapshot();
+        assertEquals(threads * perThread, log.size());
+        assertEquals(threads * perThread, snapshot.size());
+        Set<Integer> distinct = new HashSet<>(snapshot);
+        assertEquals(threads * perThread, distinct.size());
+    }
+}
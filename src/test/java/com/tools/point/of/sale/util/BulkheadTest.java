@@ -0,0 +1,99 @@
+package com.tools.point.of.sale.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    void testFullLaneWithFullQueueRejectsAtOnce() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("bulk", 1, 0, Duration.ofSeconds(10));
+
+        assertTrue(bulkhead.tryEnter());
+        long start = System.nanoTime();
+        assertFalse(bulkhead.tryEnter());
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, bulkhead.getActive());
+        assertEquals(1, bulkhead.getRejected());
+        bulkhead.exit();
+        assertEquals(0, bulkhead.getActive());
+    }
+
+    @Test
+    void testWaitingCallerTimesOut() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("bulk", 1, 1, Duration.ofMillis(50));
+        assertTrue(bulkhead.tryEnter());
+
+        assertFalse(bulkhead.tryEnter());
+
+        assertEquals(1, bulkhead.getTimedOut());
+        assertEquals(0, bulkhead.getWaiting());
+    }
+
+    @Test
+    void testWaitingCallerGetsTheFreedSlot() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("bulk", 1, 1, Duration.ofSeconds(10));
+        assertTrue(bulkhead.tryEnter());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<Boolean> waiter = executor.submit(bulkhead::tryEnter);
+        while (bulkhead.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        bulkhead.exit();
+
+        assertTrue(waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(2, bulkhead.getAccepted());
+        executor.shutdown();
+    }
+
+    @Test
+    void testConcurrencyNeverExceedsTheLane() throws Exception {
+        // Arrange
+        int maxConcurrent = 3;
+        Bulkhead bulkhead = new Bulkhead("checkout", maxConcurrent, 100, Duration.ofSeconds(30));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                assertTrue(bulkhead.tryEnter());
+                try {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(2);
+                    running.decrementAndGet();
+                } finally {
+                    bulkhead.exit();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertTrue(maxRunning.get() <= maxConcurrent);
+        assertEquals(64, bulkhead.getAccepted());
+        assertEquals(0, bulkhead.getActive());
+    }
+}
@@ -0,0 +1,48 @@
+package com.tools.point.of.sale.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolidayCalendarTest {
+
+    @Test
+    void testDefaultCalendarObservesIndependenceDayAndLaborDay() {
+        HolidayCalendar calendar = HolidayCalendar.unitedStates();
+
+        assertArrayEquals(new LocalDate[]{LocalDate.of(2015, 7, 3), LocalDate.of(2015, 9, 7)}, calendar.holidaysOf(2015));
+        assertArrayEquals(new LocalDate[]{LocalDate.of(2021, 7, 5), LocalDate.of(2021, 9, 6)}, calendar.holidaysOf(2021));
+        assertTrue(calendar.isHoliday(LocalDate.of(2020, 7, 3)));
+        assertFalse(calendar.isHoliday(LocalDate.of(2020, 7, 4)));
+    }
+
+    @Test
+    void testParsedRulesMoveObservedHolidaysAcrossYears() {
+        HolidayCalendar calendar = HolidayCalendar.parse("observed:fixed:JANUARY:1, last:MONDAY:MAY, nth:4:THURSDAY:NOVEMBER");
+
+        // 01/01/2022 is a Saturday and is observed on 12/31/2021
+        assertTrue(calendar.isHoliday(LocalDate.of(2021, 12, 31)));
+        assertTrue(calendar.isHoliday(LocalDate.of(2021, 5, 31)));
+        assertTrue(calendar.isHoliday(LocalDate.of(2021, 11, 25)));
+        assertEquals(2, calendar.holidaysOf(2022).length);
+    }
+
+    @Test
+    void testInvalidRuleIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> HolidayRule.parse("nth:MONDAY:SEPTEMBER"));
+    }
+
+    @Test
+    void testRuleWithoutADateInEveryYearIsRejected() {
+        // a fifth Monday would roll into the next month, February 29th does not exist in non-leap years
+        assertThrows(IllegalArgumentException.class, () -> HolidayRule.parse("nth:5:MONDAY:SEPTEMBER"));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRule.parse("nth:0:MONDAY:SEPTEMBER"));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRule.parse("fixed:FEBRUARY:29"));
+        assertThrows(IllegalArgumentException.class, () -> HolidayCalendar.parse("fixed:APRIL:31"));
+
+        assertEquals(LocalDate.of(2021, 2, 28), HolidayRule.parse("fixed:FEBRUARY:28").dateIn(2021));
+        assertEquals(LocalDate.of(2021, 9, 27), HolidayRule.parse("nth:4:MONDAY:SEPTEMBER").dateIn(2021));
+    }
+}
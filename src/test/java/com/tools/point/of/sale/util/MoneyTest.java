@@ -0,0 +1,30 @@
+package com.tools.point.of.sale.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoneyTest {
+
+    @Test
+    void testPercentOfRoundsHalfUp() {
+        assertEquals(150L, Money.percentOf(598, 25));
+        assertEquals(112L, Money.percentOf(447, 25));
+        assertEquals(40L, Money.percentOf(398, 10));
+        assertEquals(-150L, Money.percentOf(-299, 50));
+    }
+
+    @Test
+    void testToCentsUsesTheWrittenDecimalValue() {
+        assertEquals(299L, Money.toCents(2.99f));
+        assertEquals(101L, Money.toCents(1.005f));
+    }
+
+    @Test
+    void testFormatMatchesUsCurrencyFormat() {
+        assertEquals("$0.00", Money.format(0));
+        assertEquals("$4.48", Money.format(448));
+        assertEquals("$1,234,567.89", Money.format(123456789));
+        assertEquals("-$0.05", Money.format(-5));
+    }
+}
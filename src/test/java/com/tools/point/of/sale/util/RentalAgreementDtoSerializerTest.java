@@ -0,0 +1,49 @@
+package com.tools.point.of.sale.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tools.point.of.sale.dto.ProcessResult;
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RentalAgreementDtoSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testSerializeAgreement() throws Exception {
+        RentalAgreementDto rentalAgreementDto = RentalAgreementDto.builder()
+                .toolCode("LADW")
+                .toolType("Ladder")
+                .toolBrand("Werner")
+                .rentalDays(10)
+                .checkOutDate("09/04/2024")
+                .dueDate("09/14/2024")
+                .dailyRentalCharge(199)
+                .chargeDays(10)
+                .preDiscountCharge(1990)
+                .discountPercent(25)
+                .discountAmount(497)
+                .finalCharge(1493)
+                .processResult(ProcessResult.builder().status("Ok").message("Checkout Successful").build())
+                .build();
+
+        assertEquals("{\"toolCode\":\"LADW\",\"toolType\":\"Ladder\",\"toolBrand\":\"Werner\",\"rentalDays\":10,"
+                        + "\"checkOutDate\":\"09/04/2024\",\"dueDate\":\"09/14/2024\",\"dailyRentalCharge\":\"$1.99\","
+                        + "\"chargeDays\":10,\"preDiscountCharge\":\"$19.90\",\"discountPercent\":25.0,"
+                        + "\"discountAmount\":\"$4.97\",\"finalCharge\":\"$14.93\","
+                        + "\"processResult\":{\"status\":\"Ok\",\"message\":\"Checkout Successful\"}}",
+                objectMapper.writeValueAsString(rentalAgreementDto));
+    }
+
+    @Test
+    void testSerializeErrorLeavesOutDefaults() throws Exception {
+        RentalAgreementDto rentalAgreementDto = RentalAgreementDto.builder()
+                .processResult(ProcessResult.builder().status("Error").message("Percentage should be between 0 to 100").build())
+                .build();
+
+        assertEquals("{\"processResult\":{\"status\":\"Error\",\"message\":\"Percentage should be between 0 to 100\"}}",
+                objectMapper.writeValueAsString(rentalAgreementDto));
+    }
+}
@@ -0,0 +1,60 @@
+package com.tools.point.of.sale.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ToolsRentalUtilTest {
+
+    @Test
+    void testChargeableDaysMatchExistingScenarios() {
+        assertEquals(3, ToolsRentalUtil.getChargeableDaysForJackHammer("09/03/2015", 6));
+        assertEquals(5, ToolsRentalUtil.getChargeableDaysForJackHammer("07/02/2015", 9));
+        assertEquals(1, ToolsRentalUtil.getChargeableDaysForJackHammer("07/02/2020", 4));
+        assertEquals(2, ToolsRentalUtil.getChargeableDaysForLadder("07/02/2020", 3));
+        assertEquals(3, ToolsRentalUtil.getChargeableDaysForChainSaw("07/02/2015", 5));
+    }
+
+    @Test
+    void testChargeableDaysAcrossYearBoundary() {
+        // billed days 12/21/2019 - 07/07/2020 span two years and cover the observed Independence Day of 2020 (Friday 07/03/2020)
+        LocalDate from = LocalDate.of(2019, 12, 21);
+        LocalDate to = LocalDate.of(2020, 7, 7);
+        int weekdays = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (date.getDayOfWeek().getValue() < DayOfWeek.SATURDAY.getValue()) {
+                weekdays++;
+            }
+        }
+        assertEquals(weekdays - 1, ToolsRentalUtil.getChargeableDaysForJackHammer("12/20/2019", 200));
+    }
+
+    @Test
+    void testLongRentalCountsEveryYearsHolidays() {
+        // 01/01/2020 - 12/31/2022: three Labor Days and three observed Independence Days
+        assertEquals(1096 - 6, ToolsRentalUtil.getChargeableDaysForLadder("12/31/2019", 1096));
+    }
+
+    @Test
+    void testHolidayOnAWeekendIsNotSubtractedTwice() {
+        // Independence Day 2020 is a Saturday; without observed: it stays on the weekend
+        ToolsRentalUtil.useHolidayCalendar(HolidayCalendar.parse("fixed:JULY:4"));
+        try {
+            // billed days: Fri 07/03, Sat 07/04 (holiday), Sun 07/05, Mon 07/06
+            assertEquals(2, ToolsRentalUtil.getChargeableDaysForJackHammer("07/02/2020", 4));
+            assertEquals(3, ToolsRentalUtil.getChargeableDaysForLadder("07/02/2020", 4));
+            // a weekend holiday is not charged by a tool that does not charge weekends, even if it charges holidays
+            assertEquals(2, ToolsRentalUtil.getChargeableDaysForChainSaw("07/02/2020", 4));
+            LocalDate checkoutDate = LocalDate.of(2020, 7, 2);
+            assertEquals(ToolsRentalUtil.getNumberOfChargeDays(ChargeMask.compile("Yes", "No", "No"), checkoutDate, 4),
+                    ToolsRentalUtil.getChargeableDaysForJackHammer("07/02/2020", 4));
+            assertEquals(ToolsRentalUtil.getNumberOfChargeDays(ChargeMask.compile("Yes", "No", "Yes"), checkoutDate, 4),
+                    ToolsRentalUtil.getChargeableDaysForChainSaw("07/02/2020", 4));
+        } finally {
+            ToolsRentalUtil.useHolidayCalendar(HolidayCalendar.unitedStates());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.tools.point.of.sale.util;
+
+import com.tools.point.of.main.CheckoutServiceFromMainClass;
+import com.tools.point.of.sale.dto.CheckoutDto;
+import com.tools.point.of.sale.dto.RentalAgreementDto;
+import com.tools.point.of.sale.dto.ToolDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolsStaticDbTest {
+
+    private static ToolDto tool(String toolCode, float dailyCharge) {
+        ToolDto toolDto = new ToolDto();
+        toolDto.setToolCode(toolCode);
+        toolDto.setToolType("Ladder");
+        toolDto.setBrand("Werner");
+        toolDto.setDailyCharge(dailyCharge);
+        toolDto.setWeekdayCharge("Yes");
+        toolDto.setHolidayCharge("No");
+        toolDto.setWeekendCharge("Yes");
+        return toolDto;
+    }
+
+    @Test
+    void testNewServiceKeepsToolsAddedEarlier() {
+        new ToolsStaticDb().addTool(tool("LADX", 2.49f));
+        try {
+            CheckoutServiceFromMainClass checkoutService = new CheckoutServiceFromMainClass();
+
+            RentalAgreementDto result = checkoutService.priceCheckout(new CheckoutDto("LADX", 2, 0, "09/04/2024"));
+
+            assertEquals("Ok", result.getProcessResult().getStatus());
+            assertEquals(498, result.getPreDiscountCharge());
+            assertNotNull(new ToolsStaticDb().getToolDetails("LADW"));
+        } finally {
+            ToolsStaticDb.tools.remove("LADX");
+        }
+    }
+
+    @Test
+    void testUnknownToolIsAnErrorAndIsNotSaved() {
+        long saved = ToolsStaticDb.rentalAgreements.size();
+
+        RentalAgreementDto result = new CheckoutServiceFromMainClass().checkoutTool(new CheckoutDto("NONE", 2, 0, "09/04/2024"));
+
+        assertEquals("Error", result.getProcessResult().getStatus());
+        assertEquals("Tool not found", result.getProcessResult().getMessage());
+        assertNull(new ToolsStaticDb().getToolDetails(null));
+        assertEquals(saved, ToolsStaticDb.rentalAgreements.size());
+    }
+
+    @Test
+    void testConcurrentCheckoutsAreAllPricedAndSaved() throws Exception {
+        // Arrange: every thread uses its own service instance, all sharing the static database
+        int threads = 8;
+        int checkoutsPerThread = 2_000;
+        List<String> toolCodes = List.of("LADW", "CHNS", "JAKD", "JAKR");
+        RentalAgreementDto expected = new CheckoutServiceFromMainClass().priceCheckout(new CheckoutDto("JAKR", 9, 0, "07/02/2020"));
+        long savedBefore = ToolsStaticDb.rentalAgreements.size();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        List<Future<List<RentalAgreementDto>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                CheckoutServiceFromMainClass checkoutService = new CheckoutServiceFromMainClass();
+                start.await();
+                List<RentalAgreementDto> results = new ArrayList<>();
+                for (int i = 0; i < checkoutsPerThread; i++) {
+                    String toolCode = toolCodes.get(i % toolCodes.size());
+                    results.add(checkoutService.checkoutTool(new CheckoutDto(toolCode, 9, 0, "07/02/2020")));
+                }
+                return results;
+            }));
+        }
+        start.countDown();
+        List<RentalAgreementDto> results = new ArrayList<>();
+        for (Future<List<RentalAgreementDto>> future : futures) {
+            results.addAll(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Assert: every checkout succeeded with the same charges as a single threaded one and was saved once
+        assertEquals(threads * checkoutsPerThread, results.size());
+        for (RentalAgreementDto result : results) {
+            assertEquals("Ok", result.getProcessResult().getStatus());
+            if ("JAKR".equals(result.getToolCode())) {
+                assertEquals(expected.getChargeDays(), result.getChargeDays());
+                assertEquals(expected.getFinalCharge(), result.getFinalCharge());
+            }
+        }
+        assertEquals(savedBefore + threads * checkoutsPerThread, ToolsStaticDb.rentalAgreements.size());
+    }
+}